@@ -52,6 +52,14 @@ public class OpenApiConfig {
                 .build();
     }
 
+    @Bean
+    public GroupedOpenApi vendorApi() {
+        return GroupedOpenApi.builder()
+                .group("vendor")
+                .pathsToMatch("/api/vendor/**")
+                .build();
+    }
+
     @Bean
     public GroupedOpenApi tokenApi() {
         return GroupedOpenApi.builder()
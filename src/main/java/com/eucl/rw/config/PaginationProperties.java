@@ -0,0 +1,27 @@
+package com.eucl.rw.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.pagination")
+public class PaginationProperties {
+
+    private int defaultLimit = 50;
+
+    private int maxLimit = 500;
+
+    public int limit(Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        if (requested < 1) {
+            throw new RuntimeException("Limit must be at least 1");
+        }
+        return Math.min(requested, maxLimit);
+    }
+}
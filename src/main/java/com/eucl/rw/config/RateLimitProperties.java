@@ -0,0 +1,50 @@
+package com.eucl.rw.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private String apiKeyHeader = "X-API-Key";
+
+    /**
+     * Keys issued to partners. Only these get a bucket of their own; any other value of the header is ignored and
+     * the request is charged to its remote address.
+     */
+    private Set<String> apiKeys = new HashSet<>();
+
+    private Duration idleEviction = Duration.ofMinutes(10);
+
+    private long maximumClients = 100_000;
+
+    private List<Route> routes = new ArrayList<>(List.of(
+            new Route("/api/auth/**", 20, 5),
+            new Route("/api/tokens/**", 60, 20)
+    ));
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Route {
+        private String pattern;
+        private int capacity;
+        private double refillPerSecond;
+    }
+}
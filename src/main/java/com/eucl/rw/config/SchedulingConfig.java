@@ -0,0 +1,15 @@
+package com.eucl.rw.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} jobs unless {@code app.scheduling.enabled=false}, which test suites set so
+ * background jobs do not race them or outlive their database.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "app.scheduling", name = "enabled", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -1,10 +1,14 @@
 package com.eucl.rw.controller;
 
+import com.eucl.rw.dto.MeterAllocationStatsDTO;
+import com.eucl.rw.dto.MeterDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.dto.UserDTO;
 import com.eucl.rw.enums.ERole;
 import com.eucl.rw.enums.ETokenStatus;
-import com.eucl.rw.model.Meter;
-import com.eucl.rw.model.Token;
 import com.eucl.rw.model.User;
+import com.eucl.rw.response.CursorPage;
+import com.eucl.rw.service.MeterAllocationService;
 import com.eucl.rw.service.MeterService;
 import com.eucl.rw.service.TokenService;
 import com.eucl.rw.service.UserService;
@@ -32,63 +36,80 @@ public class AdminController {
     private final UserService userService;
     private final MeterService meterService;
     private final TokenService tokenService;
+    private final MeterAllocationService meterAllocationService;
 
     public AdminController(UserService userService, MeterService meterService,
-            TokenService tokenService) {
+            TokenService tokenService, MeterAllocationService meterAllocationService) {
         this.userService = userService;
         this.meterService = meterService;
         this.tokenService = tokenService;
+        this.meterAllocationService = meterAllocationService;
     }
 
     @GetMapping("/users")
-    @Operation(summary = "Get all users", description = "Retrieves a list of all registered users")
+    @Operation(summary = "Get all users", description = "Retrieves a page of registered users ordered by email; pass nextCursor back as cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Users retrieved successfully", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "Users retrieved successfully", content = @Content(schema = @Schema(implementation = CursorPage.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content)
     })
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<CursorPage<UserDTO>> getAllUsers(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getUsers(cursor, limit));
     }
 
     @PostMapping("/users")
     @Operation(summary = "Create a new user", description = "Creates a new user with specified roles")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "User created successfully", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "User created successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid user data or roles", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
             @ApiResponse(responseCode = "409", description = "User already exists", content = @Content)
     })
-    public ResponseEntity<User> createUser(@RequestBody User user,
+    public ResponseEntity<UserDTO> createUser(@RequestBody User user,
             @RequestParam Set<ERole> roles) {
-        return ResponseEntity.ok(userService.registerUser(user, roles));
+        return ResponseEntity.ok(UserDTO.from(userService.registerUser(user, roles)));
     }
 
     @GetMapping("/users/{userId}")
     @Operation(summary = "Get user by ID", description = "Retrieves a user by their unique ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "User retrieved successfully", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "User retrieved successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
-    public ResponseEntity<User> getUserById(@PathVariable UUID userId) {
-        return ResponseEntity.ok(userService.getUserById(userId));
+    public ResponseEntity<UserDTO> getUserById(@PathVariable UUID userId) {
+        return ResponseEntity.ok(userService.getUserView(userId));
     }
 
     @PutMapping("/users/{userId}")
     @Operation(summary = "Update user", description = "Updates user details by their unique ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "User updated successfully", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "User updated successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid user data", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
-    public ResponseEntity<User> updateUser(@PathVariable UUID userId,
+    public ResponseEntity<UserDTO> updateUser(@PathVariable UUID userId,
             @RequestBody User userDetails) {
-        return ResponseEntity.ok(userService.updateUser(userId, userDetails));
+        return ResponseEntity.ok(UserDTO.from(userService.updateUser(userId, userDetails)));
+    }
+
+    @PutMapping("/users/{userId}/roles")
+    @Operation(summary = "Update user roles", description = "Replaces the roles of a user and invalidates their issued access tokens")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Roles updated successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid roles", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
+            @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
+    })
+    public ResponseEntity<UserDTO> updateUserRoles(@PathVariable UUID userId,
+            @RequestParam Set<ERole> roles) {
+        return ResponseEntity.ok(UserDTO.from(userService.updateUserRoles(userId, roles)));
     }
 
     @DeleteMapping("/users/{userId}")
@@ -107,36 +128,48 @@ public class AdminController {
     @PostMapping("/meters")
     @Operation(summary = "Register a meter", description = "Registers a new meter for a user")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Meter registered successfully", content = @Content(schema = @Schema(implementation = Meter.class))),
+            @ApiResponse(responseCode = "200", description = "Meter registered successfully", content = @Content(schema = @Schema(implementation = MeterDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid user ID", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
-    public ResponseEntity<Meter> registerMeter(@RequestParam UUID userId) {
-        return ResponseEntity.ok(meterService.registerMeter(userId));
+    public ResponseEntity<MeterDTO> registerMeter(@RequestParam UUID userId) {
+        return ResponseEntity.ok(MeterDTO.from(meterService.registerMeter(userId)));
     }
 
     @GetMapping("/meters")
-    @Operation(summary = "Get all meters", description = "Retrieves a list of all registered meters")
+    @Operation(summary = "Get all meters", description = "Retrieves a page of registered meters ordered by meter number; pass nextCursor back as cursor for the next page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Meters retrieved successfully", content = @Content(schema = @Schema(implementation = CursorPage.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content)
+    })
+    public ResponseEntity<CursorPage<MeterDTO>> getAllMeters(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(meterService.getMeters(cursor, limit));
+    }
+
+    @GetMapping("/meters/allocation")
+    @Operation(summary = "Get meter number allocation", description = "Retrieves occupancy and fragmentation of the 6-digit meter number space")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Meters retrieved successfully", content = @Content(schema = @Schema(implementation = Meter.class))),
+            @ApiResponse(responseCode = "200", description = "Allocation figures retrieved successfully", content = @Content(schema = @Schema(implementation = MeterAllocationStatsDTO.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content)
     })
-    public ResponseEntity<List<Meter>> getAllMeters() {
-        return ResponseEntity.ok(meterService.getAllMeters());
+    public ResponseEntity<MeterAllocationStatsDTO> getMeterAllocation() {
+        return ResponseEntity.ok(meterAllocationService.getStats());
     }
 
     @GetMapping("/users/{userId}/meters")
     @Operation(summary = "Get user's meters", description = "Retrieves all meters for a specific user")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Meters retrieved successfully", content = @Content(schema = @Schema(implementation = Meter.class))),
+            @ApiResponse(responseCode = "200", description = "Meters retrieved successfully", content = @Content(schema = @Schema(implementation = MeterDTO.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
-    public ResponseEntity<List<Meter>> getUserMeters(@PathVariable UUID userId) {
+    public ResponseEntity<List<MeterDTO>> getUserMeters(@PathVariable UUID userId) {
         return ResponseEntity.ok(meterService.getMetersByUser(userId));
     }
 
@@ -156,37 +189,42 @@ public class AdminController {
     }
 
     @GetMapping("/tokens")
-    @Operation(summary = "Get all tokens", description = "Retrieves a list of all tokens")
+    @Operation(summary = "Get all tokens", description = "Retrieves a page of tokens, newest first; pass nextCursor back as cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = Token.class))),
+            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = CursorPage.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content)
     })
-    public ResponseEntity<List<Token>> getAllTokens() {
-        return ResponseEntity.ok(tokenService.getTokensByStatus(null));
+    public ResponseEntity<CursorPage<TokenDTO>> getAllTokens(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tokenService.getTokens(null, cursor, limit));
     }
 
     @GetMapping("/tokens/status/{status}")
-    @Operation(summary = "Get tokens by status", description = "Retrieves tokens filtered by status")
+    @Operation(summary = "Get tokens by status", description = "Retrieves a page of tokens filtered by status, newest first")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = Token.class))),
+            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = CursorPage.class))),
             @ApiResponse(responseCode = "400", description = "Invalid status", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content)
     })
-    public ResponseEntity<List<Token>> getTokensByStatus(@PathVariable ETokenStatus status) {
-        return ResponseEntity.ok(tokenService.getTokensByStatus(status));
+    public ResponseEntity<CursorPage<TokenDTO>> getTokensByStatus(@PathVariable ETokenStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tokenService.getTokens(status, cursor, limit));
     }
 
     @GetMapping("/users/{userId}/tokens")
-    @Operation(summary = "Get user's tokens", description = "Retrieves all tokens for a specific user")
+    @Operation(summary = "Get user's tokens", description = "Retrieves a page of tokens for a specific user, newest first")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = Token.class))),
+            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = CursorPage.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
-    public ResponseEntity<List<Token>> getUserTokens(@PathVariable UUID userId) {
-        return ResponseEntity.ok(tokenService.getUserTokens(userId));
+    public ResponseEntity<CursorPage<TokenDTO>> getUserTokens(@PathVariable UUID userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(tokenService.getUserTokens(userId, cursor, limit));
     }
 }
\ No newline at end of file
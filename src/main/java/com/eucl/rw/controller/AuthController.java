@@ -2,6 +2,7 @@ package com.eucl.rw.controller;
 
 import com.eucl.rw.dto.LoginDTO;
 import com.eucl.rw.dto.RefreshTokenDTO;
+import com.eucl.rw.dto.UserDTO;
 import com.eucl.rw.dto.UserRegistrationDTO;
 import com.eucl.rw.enums.ERole;
 import com.eucl.rw.model.User;
@@ -14,10 +15,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -26,10 +31,13 @@ public class AuthController {
 
     private final AuthService authService;
     private final UserService userService;
+    private final long loginRetryAfterSeconds;
 
-    public AuthController(AuthService authService, UserService userService) {
+    public AuthController(AuthService authService, UserService userService,
+            @Value("${app.auth.login.retry-after-seconds:1}") long loginRetryAfterSeconds) {
         this.authService = authService;
         this.userService = userService;
+        this.loginRetryAfterSeconds = loginRetryAfterSeconds;
     }
 
     @PostMapping("/register")
@@ -53,18 +61,25 @@ public class AuthController {
         User registeredUser = userService.registerUser(user, roles);
         return ResponseEntity.ok(Map.of(
                 "message", "User registered successfully",
-                "user", registeredUser));
+                "user", UserDTO.from(registeredUser)));
     }
 
     @PostMapping("/login")
     @Operation(summary = "User login", description = "Authenticates a user and returns access and refresh tokens")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully authenticated", content = @Content(schema = @Schema(implementation = AuthResponse.class))),
-            @ApiResponse(responseCode = "401", description = "Invalid credentials", content = @Content)
+            @ApiResponse(responseCode = "401", description = "Invalid credentials", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many logins in progress, retry after the Retry-After delay", content = @Content)
     })
     public ResponseEntity<?> authenticateUser(@RequestBody LoginDTO loginDTO) {
-        AuthResponse response = authService.login(loginDTO.getEmail(), loginDTO.getPassword());
-        return ResponseEntity.ok(response);
+        try {
+            AuthResponse response = authService.login(loginDTO.getEmail(), loginDTO.getPassword());
+            return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginRetryAfterSeconds))
+                    .body(Map.of("message", "Too many login attempts in progress, please retry shortly"));
+        }
     }
 
     @PostMapping("/refresh")
@@ -1,9 +1,12 @@
 package com.eucl.rw.controller;
 
-import com.eucl.rw.model.Meter;
-import com.eucl.rw.model.Notification;
-import com.eucl.rw.model.Token;
+import com.eucl.rw.dto.MeterDTO;
+import com.eucl.rw.dto.NotificationDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.dto.UserDTO;
 import com.eucl.rw.model.User;
+import com.eucl.rw.response.CursorPage;
+import com.eucl.rw.service.GroupCommitPurchaseService;
 import com.eucl.rw.service.MeterService;
 import com.eucl.rw.service.NotificationService;
 import com.eucl.rw.service.TokenService;
@@ -35,46 +38,49 @@ public class CustomerController {
     private final MeterService meterService;
     private final TokenService tokenService;
     private final NotificationService notificationService;
+    private final GroupCommitPurchaseService purchaseService;
 
     public CustomerController(UserService userService, MeterService meterService,
-            TokenService tokenService, NotificationService notificationService) {
+            TokenService tokenService, NotificationService notificationService,
+            GroupCommitPurchaseService purchaseService) {
         this.userService = userService;
         this.meterService = meterService;
         this.tokenService = tokenService;
         this.notificationService = notificationService;
+        this.purchaseService = purchaseService;
     }
 
     @GetMapping("/profile")
     @Operation(summary = "Get user profile", description = "Retrieves the authenticated user's profile")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Profile retrieved successfully", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "Profile retrieved successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
-    public ResponseEntity<User> getProfile() {
+    public ResponseEntity<UserDTO> getProfile() {
         UUID userId = getCurrentUserId();
-        return ResponseEntity.ok(userService.getUserById(userId));
+        return ResponseEntity.ok(userService.getUserView(userId));
     }
 
     @PutMapping("/profile")
     @Operation(summary = "Update user profile", description = "Updates the authenticated user's profile")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Profile updated successfully", content = @Content(schema = @Schema(implementation = User.class))),
+            @ApiResponse(responseCode = "200", description = "Profile updated successfully", content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid input data", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content)
     })
-    public ResponseEntity<User> updateProfile(@RequestBody User userDetails) {
+    public ResponseEntity<UserDTO> updateProfile(@RequestBody User userDetails) {
         UUID userId = getCurrentUserId();
-        return ResponseEntity.ok(userService.updateUser(userId, userDetails));
+        return ResponseEntity.ok(UserDTO.from(userService.updateUser(userId, userDetails)));
     }
 
     @GetMapping("/meters")
     @Operation(summary = "Get user's meters", description = "Retrieves all meters associated with the authenticated user")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Meters retrieved successfully", content = @Content(schema = @Schema(implementation = Meter.class))),
+            @ApiResponse(responseCode = "200", description = "Meters retrieved successfully", content = @Content(schema = @Schema(implementation = MeterDTO.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content)
     })
-    public ResponseEntity<List<Meter>> getMyMeters() {
+    public ResponseEntity<List<MeterDTO>> getMyMeters() {
         UUID userId = getCurrentUserId();
         return ResponseEntity.ok(meterService.getMetersByUser(userId));
     }
@@ -82,43 +88,42 @@ public class CustomerController {
     @PostMapping("/tokens/purchase")
     @Operation(summary = "Purchase a token", description = "Purchases a token for a specific meter")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Token purchased successfully", content = @Content(schema = @Schema(implementation = Token.class))),
+            @ApiResponse(responseCode = "200", description = "Token purchased successfully", content = @Content(schema = @Schema(implementation = TokenDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid meter number or amount", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Meter does not belong to user", content = @Content)
     })
-    public ResponseEntity<Token> purchaseToken(@RequestParam String meterNumber,
+    public ResponseEntity<TokenDTO> purchaseToken(@RequestParam String meterNumber,
             @RequestParam double amount) {
         UUID userId = getCurrentUserId();
-        if (meterService.getMetersByUser(userId).stream()
-                .noneMatch(m -> m.getMeterNumber().equals(meterNumber))) {
+        if (!meterService.isMeterOwnedBy(meterNumber, userId)) {
             throw new RuntimeException("Meter does not belong to user");
         }
-        return ResponseEntity.ok(tokenService.generateToken(meterNumber, amount));
+        return ResponseEntity.ok(purchaseService.purchase(meterNumber, amount));
     }
 
     @GetMapping("/tokens")
-    @Operation(summary = "Get user's tokens", description = "Retrieves all tokens purchased by the authenticated user")
+    @Operation(summary = "Get user's tokens", description = "Retrieves a page of tokens purchased by the authenticated user, newest first; pass nextCursor back as cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = Token.class))),
+            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = CursorPage.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content)
     })
-    public ResponseEntity<List<Token>> getMyTokens() {
+    public ResponseEntity<CursorPage<TokenDTO>> getMyTokens(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         UUID userId = getCurrentUserId();
-        return ResponseEntity.ok(tokenService.getUserTokens(userId));
+        return ResponseEntity.ok(tokenService.getUserTokens(userId, cursor, limit));
     }
 
     @GetMapping("/tokens/{meterNumber}")
     @Operation(summary = "Get tokens by meter", description = "Retrieves all tokens for a specific meter")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = Token.class))),
+            @ApiResponse(responseCode = "200", description = "Tokens retrieved successfully", content = @Content(schema = @Schema(implementation = TokenDTO.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
             @ApiResponse(responseCode = "403", description = "Meter does not belong to user", content = @Content)
     })
-    public ResponseEntity<List<Token>> getMeterTokens(@PathVariable String meterNumber) {
+    public ResponseEntity<List<TokenDTO>> getMeterTokens(@PathVariable String meterNumber) {
         UUID userId = getCurrentUserId();
-        if (meterService.getMetersByUser(userId).stream()
-                .noneMatch(m -> m.getMeterNumber().equals(meterNumber))) {
+        if (!meterService.isMeterOwnedBy(meterNumber, userId)) {
             throw new RuntimeException("Meter does not belong to user");
         }
         return ResponseEntity.ok(tokenService.getTokensByMeter(meterNumber));
@@ -127,24 +132,24 @@ public class CustomerController {
     @GetMapping("/tokens/validate/{token}")
     @Operation(summary = "Validate a token", description = "Validates a token's authenticity and status")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Token validated successfully", content = @Content(schema = @Schema(implementation = Token.class))),
+            @ApiResponse(responseCode = "200", description = "Token validated successfully", content = @Content(schema = @Schema(implementation = TokenDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid token", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content)
     })
-    public ResponseEntity<Token> validateToken(@PathVariable String token) {
-        Token validatedToken = tokenService.validateToken(token);
-        return ResponseEntity.ok(validatedToken);
+    public ResponseEntity<TokenDTO> validateToken(@PathVariable String token) {
+        return ResponseEntity.ok(tokenService.validateToken(token));
     }
 
     @GetMapping("/notifications")
-    @Operation(summary = "Get user's notifications", description = "Retrieves all notifications for the authenticated user")
+    @Operation(summary = "Get user's notifications", description = "Retrieves a page of notifications for the authenticated user, newest first; pass nextCursor back as cursor for the next page")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Notifications retrieved successfully", content = @Content(schema = @Schema(implementation = Notification.class))),
+            @ApiResponse(responseCode = "200", description = "Notifications retrieved successfully", content = @Content(schema = @Schema(implementation = CursorPage.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content)
     })
-    public ResponseEntity<List<Notification>> getMyNotifications() {
+    public ResponseEntity<CursorPage<NotificationDTO>> getMyNotifications(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         UUID userId = getCurrentUserId();
-        return ResponseEntity.ok(notificationService.getUserNotifications(userId));
+        return ResponseEntity.ok(notificationService.getUserNotifications(userId, cursor, limit));
     }
 
     private UUID getCurrentUserId() {
@@ -0,0 +1,133 @@
+package com.eucl.rw.controller;
+
+import com.eucl.rw.enums.EExportFormat;
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+
+@RestController
+@RequestMapping("/api/admin/exports")
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+@Tag(name = "Exports", description = "Streaming exports of token and notification history")
+@SecurityRequirement(name = "bearerAuth")
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final ExportService exportService;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+    // Each running export holds a pooled connection for as long as the client reads, so only a few may run.
+    private final Semaphore running;
+    private final ThreadPoolTaskExecutor exporters;
+
+    public ExportController(ExportService exportService,
+                            @Value("${app.exports.max-concurrent:2}") int maxConcurrent,
+                            @Value("${app.exports.timeout-ms:600000}") long timeoutMs,
+                            @Value("${app.exports.retry-after-seconds:30}") long retryAfterSeconds) {
+        this.exportService = exportService;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.running = new Semaphore(Math.max(1, maxConcurrent));
+        this.exporters = new ThreadPoolTaskExecutor();
+        this.exporters.setCorePoolSize(Math.max(1, maxConcurrent));
+        this.exporters.setMaxPoolSize(Math.max(1, maxConcurrent));
+        this.exporters.setQueueCapacity(Math.max(1, maxConcurrent));
+        this.exporters.setThreadNamePrefix("export-");
+        this.exporters.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        exporters.shutdown();
+    }
+
+    @GetMapping("/tokens")
+    @Operation(summary = "Export tokens", description = "Streams purchased tokens as NDJSON or CSV, oldest first, filtered by purchase date range, status and meter")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or format", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many exports running, retry after the Retry-After delay", content = @Content)
+    })
+    public WebAsyncTask<Void> exportTokens(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) ETokenStatus status,
+            @RequestParam(required = false) String meterNumber,
+            @RequestParam(defaultValue = "NDJSON") EExportFormat format,
+            HttpServletResponse response) {
+        return stream("tokens", format, response,
+                out -> exportService.exportTokens(from, to, status, meterNumber, format, out));
+    }
+
+    @GetMapping("/notifications")
+    @Operation(summary = "Export notifications", description = "Streams notifications as NDJSON or CSV, oldest first, filtered by issue date range, email status and meter")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or format", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin role required", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many exports running, retry after the Retry-After delay", content = @Content)
+    })
+    public WebAsyncTask<Void> exportNotifications(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean emailed,
+            @RequestParam(required = false) String meterNumber,
+            @RequestParam(defaultValue = "NDJSON") EExportFormat format,
+            HttpServletResponse response) {
+        return stream("notifications", format, response,
+                out -> exportService.exportNotifications(from, to, emailed, meterNumber, format, out));
+    }
+
+    /**
+     * Writes the export straight to the response on the export pool. The task has its own timeout, so a slow
+     * reader is cut off (and its thread interrupted) instead of holding a connection indefinitely.
+     */
+    private WebAsyncTask<Void> stream(String name, EExportFormat format, HttpServletResponse response,
+                                      StreamingResponseBody body) {
+        if (!running.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return null;
+        }
+        boolean csv = format == EExportFormat.CSV;
+        response.setContentType((csv ? CSV : NDJSON).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(name + (csv ? ".csv" : ".ndjson"))
+                .build()
+                .toString());
+        return new WebAsyncTask<>(timeoutMs, exporters, () -> {
+            try {
+                body.writeTo(response.getOutputStream());
+                return null;
+            } finally {
+                running.release();
+            }
+        });
+    }
+}
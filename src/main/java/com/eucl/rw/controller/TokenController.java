@@ -1,15 +1,22 @@
 package com.eucl.rw.controller;
 
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.enums.ERole;
 import com.eucl.rw.enums.ETokenStatus;
-import com.eucl.rw.model.Token;
+import com.eucl.rw.service.MeterService;
 import com.eucl.rw.service.TokenService;
+import com.eucl.rw.util.UserPrincipal;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
@@ -22,9 +29,11 @@ import java.util.Map;
 public class TokenController {
 
     private final TokenService tokenService;
+    private final MeterService meterService;
 
-    public TokenController(TokenService tokenService) {
+    public TokenController(TokenService tokenService, MeterService meterService) {
         this.tokenService = tokenService;
+        this.meterService = meterService;
     }
 
     @GetMapping("/{token}")
@@ -35,7 +44,7 @@ public class TokenController {
             @ApiResponse(responseCode = "404", description = "Token not found", content = @Content)
     })
     public ResponseEntity<?> getTokenInfo(@PathVariable String token) {
-        Token tokenInfo = tokenService.validateToken(token);
+        TokenDTO tokenInfo = tokenService.getTokenInfo(token);
         Map<String, Object> response = new HashMap<>();
         response.put("token", tokenInfo.getToken());
         response.put("formattedToken", tokenInfo.getFormattedToken());
@@ -45,6 +54,27 @@ public class TokenController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/{token}/redeem")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_CUSTOMER')")
+    @SecurityRequirement(name = "bearerAuth")
+    @Operation(summary = "Redeem a token", description = "Marks a new token as used on the meter it was purchased for; customers may only redeem on their own meters")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token redeemed successfully", content = @Content(schema = @Schema(implementation = TokenDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Token already used, expired or bought for another meter", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Not authenticated", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Meter does not belong to user", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Token not found", content = @Content)
+    })
+    public ResponseEntity<TokenDTO> redeemToken(@PathVariable String token, @RequestParam String meterNumber,
+                                                @AuthenticationPrincipal UserPrincipal principal) {
+        boolean admin = principal != null && principal.getAuthorities().stream()
+                .anyMatch(authority -> ERole.ROLE_ADMIN.name().equals(authority.getAuthority()));
+        if (!admin && (principal == null || !meterService.isMeterOwnedBy(meterNumber, principal.getId()))) {
+            throw new AccessDeniedException("Meter does not belong to user");
+        }
+        return ResponseEntity.ok(tokenService.redeemToken(token, meterNumber));
+    }
+
     @GetMapping("/{token}/status")
     @Operation(summary = "Get token status", description = "Retrieves the status of a specific token")
     @ApiResponses(value = {
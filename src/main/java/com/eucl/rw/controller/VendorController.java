@@ -0,0 +1,46 @@
+package com.eucl.rw.controller;
+
+import com.eucl.rw.dto.PurchaseLineDTO;
+import com.eucl.rw.response.PurchaseLineResponse;
+import com.eucl.rw.service.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/vendor")
+@PreAuthorize("hasRole('ROLE_VENDOR')")
+@Tag(name = "Vendor", description = "Endpoints for point-of-sale aggregators")
+@SecurityRequirement(name = "bearerAuth")
+public class VendorController {
+
+    private final TokenService tokenService;
+
+    public VendorController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @PostMapping("/tokens/purchase/batch")
+    @Operation(summary = "Purchase tokens in bulk", description = "Purchases one token per line and reports the outcome of every line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed", content = @Content(array = @ArraySchema(schema = @Schema(implementation = PurchaseLineResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Batch exceeds the maximum number of lines or contains a null line", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing JWT token", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Vendor role required", content = @Content)
+    })
+    public ResponseEntity<List<PurchaseLineResponse>> purchaseTokens(@RequestBody @Valid List<@NotNull PurchaseLineDTO> lines) {
+        return ResponseEntity.ok(tokenService.generateTokens(lines));
+    }
+}
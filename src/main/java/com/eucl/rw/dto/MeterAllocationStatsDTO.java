@@ -0,0 +1,18 @@
+package com.eucl.rw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class MeterAllocationStatsDTO {
+    private int capacity;
+    private int allocated;
+    private int free;
+    private double occupancy;
+    private int freeRuns;
+    private int largestFreeRun;
+    private double fragmentation;
+}
@@ -1,5 +1,6 @@
 package com.eucl.rw.dto;
 
+import com.eucl.rw.model.Meter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,5 +13,9 @@ import java.util.UUID;
 public class MeterDTO {
     private String meterNumber;
     private UUID userId;
+
+    public static MeterDTO from(Meter meter) {
+        return new MeterDTO(meter.getMeterNumber(), meter.getUser().getId());
+    }
 }
 
@@ -0,0 +1,19 @@
+package com.eucl.rw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class NotificationDTO {
+    private UUID id;
+    private String meterNumber;
+    private String message;
+    private LocalDateTime issuedDate;
+    private boolean emailed;
+}
@@ -0,0 +1,13 @@
+package com.eucl.rw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class PurchaseLineDTO {
+    private String meterNumber;
+    private Double amount;
+}
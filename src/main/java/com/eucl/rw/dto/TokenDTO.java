@@ -0,0 +1,40 @@
+package com.eucl.rw.dto;
+
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.model.Token;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class TokenDTO {
+    private UUID id;
+    private String meterNumber;
+    private String token;
+    private ETokenStatus tokenStatus;
+    private Integer tokenValueDays;
+    private LocalDateTime purchasedDate;
+    private LocalDateTime expiresAt;
+    private Double amount;
+
+    public static TokenDTO from(Token token) {
+        return new TokenDTO(
+                token.getId(),
+                token.getMeter().getMeterNumber(),
+                token.getToken(),
+                token.getTokenStatus(),
+                token.getTokenValueDays(),
+                token.getPurchasedDate(),
+                token.getExpiresAt(),
+                token.getAmount());
+    }
+
+    public String getFormattedToken() {
+        return token.replaceAll("(.{4})(?=.)", "$1-");
+    }
+}
@@ -0,0 +1,17 @@
+package com.eucl.rw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class TokenExpiryReportDTO {
+    private long rowsExpired;
+    // Due tokens left NEW because another transaction held them; SKIP LOCKED passes over them without waiting
+    private long rowsSkipped;
+    private int chunks;
+    private long chunkTransactionMillis;
+    private long totalMillis;
+}
@@ -0,0 +1,20 @@
+package com.eucl.rw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class TokenReminderDTO {
+    private UUID tokenId;
+    private UUID userId;
+    private String userName;
+    private String email;
+    private String meterNumber;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,35 @@
+package com.eucl.rw.dto;
+
+import com.eucl.rw.enums.ERole;
+import com.eucl.rw.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserDTO {
+    private UUID id;
+    private String name;
+    private String email;
+    private String phone;
+    private String nationalId;
+    private Set<ERole> roles;
+
+    public static UserDTO from(User user) {
+        return new UserDTO(
+                user.getId(),
+                user.getName(),
+                user.getEmail(),
+                user.getPhone(),
+                user.getNationalId(),
+                user.getRoles() == null || user.getRoles().isEmpty()
+                        ? EnumSet.noneOf(ERole.class)
+                        : EnumSet.copyOf(user.getRoles()));
+    }
+}
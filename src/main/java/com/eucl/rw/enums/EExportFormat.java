@@ -0,0 +1,6 @@
+package com.eucl.rw.enums;
+
+public enum EExportFormat {
+    NDJSON,
+    CSV
+}
@@ -2,5 +2,6 @@ package com.eucl.rw.enums;
 
 public enum ERole {
     ROLE_ADMIN,
-    ROLE_CUSTOMER
+    ROLE_CUSTOMER,
+    ROLE_VENDOR
 }
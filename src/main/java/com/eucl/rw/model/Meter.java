@@ -9,17 +9,20 @@ import lombok.*;
 import java.util.Set;
 
 @Entity
+@NamedEntityGraph(name = Meter.OWNER_GRAPH, attributeNodes = @NamedAttributeNode("user"))
 @Table(name = "meters")
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class Meter {
+    public static final String OWNER_GRAPH = "Meter.owner";
+
     @Id
     @Column(name = "meter_number", length = 6)
     private String meterNumber;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonBackReference("user-meter")
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -2,8 +2,9 @@ package com.eucl.rw.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -11,16 +12,20 @@ import java.util.UUID;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Entity
-@Data
+@Getter
+@Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "notifications")
+@NamedEntityGraph(name = Notification.DISPATCH_GRAPH, attributeNodes = @NamedAttributeNode("user"))
 public class Notification {
+    public static final String DISPATCH_GRAPH = "Notification.dispatch";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonBackReference("user-notification")
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -28,10 +33,20 @@ public class Notification {
     @Column(name = "meter_number", length = 6)
     private String meterNumber;
 
+    @Column(columnDefinition = "TEXT")
     private String message;
 
-    @Column(name = "issued_date")
+    @Column(name = "issued_date", nullable = false)
     private LocalDateTime issuedDate;
 
     private boolean emailed;
+
+    @Column(name = "dispatch_attempts")
+    private Integer dispatchAttempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error")
+    private String lastError;
 }
\ No newline at end of file
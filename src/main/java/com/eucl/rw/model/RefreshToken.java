@@ -1,8 +1,7 @@
 package com.eucl.rw.model;
 
 import io.swagger.v3.oas.annotations.media.Schema;
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,16 +11,28 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
+@Table(name = "refresh_tokens")
 @Schema(description = "Refresh token entity")
 public class RefreshToken {
 
     @Id
-    @Schema(description = "Unique identifier of the refresh token", example = "123e4567-e89b-12d3-a456-426614174000")
-    private String token;
+    @Column(name = "family_id")
+    @Schema(description = "Token family shared by every rotation of one login session", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID familyId;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    @Schema(description = "SHA-256 digest of the current refresh token")
+    private String tokenHash;
 
+    @Column(name = "user_id", nullable = false)
     @Schema(description = "User ID associated with the token", example = "550e8400-e29b-41d4-a716-446655440000")
     private UUID userId;
 
+    @Column(name = "expiry_date", nullable = false)
     @Schema(description = "Expiration date of the token", example = "2025-06-04T08:00:00Z")
     private Instant expiryDate;
-}
\ No newline at end of file
+
+    @Transient
+    @Schema(description = "Raw refresh token, only available when it is issued")
+    private String token;
+}
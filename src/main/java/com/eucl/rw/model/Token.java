@@ -5,29 +5,37 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@NamedEntityGraph(name = Token.REMINDER_GRAPH, attributeNodes = {
+        @NamedAttributeNode("meter"),
+        @NamedAttributeNode("user")
+})
 @Table(name = "purchased_tokens")
-@Data
+@Getter
+@Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Token {
+    public static final String REMINDER_GRAPH = "Token.reminder";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonBackReference("meter-token")
     @JoinColumn(name = "meter_number", referencedColumnName = "meter_number")
     private Meter meter;
 
     // Optional – only if needed
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonBackReference("user-token")
     private User user;
@@ -42,9 +50,12 @@ public class Token {
     @Column(name = "token_value_days")
     private Integer tokenValueDays;
 
-    @Column(name = "purchased_date")
+    @Column(name = "purchased_date", nullable = false)
     private LocalDateTime purchasedDate;
 
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
     private Double amount;
 
     public String getFormattedToken() {
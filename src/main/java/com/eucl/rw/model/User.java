@@ -5,18 +5,23 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.util.Set;
 import java.util.UUID;
 
 @Entity
 @Table(name = "users")
-@Data
+@NamedEntityGraph(name = User.PROFILE_GRAPH, attributeNodes = @NamedAttributeNode("roles"))
+@Getter
+@Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
+    public static final String PROFILE_GRAPH = "User.profile";
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
@@ -36,12 +41,15 @@ public class User {
     @Column(nullable = false)
     private String password;
 
-    @ElementCollection(targetClass = ERole.class, fetch = FetchType.EAGER)
+    @ElementCollection(targetClass = ERole.class, fetch = FetchType.LAZY)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Enumerated(EnumType.STRING)
     @Column(name = "role")
     private Set<ERole> roles;
 
+    @Column(name = "security_version")
+    private Integer securityVersion;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     @JsonManagedReference("user-meter")
     private Set<Meter> meters;
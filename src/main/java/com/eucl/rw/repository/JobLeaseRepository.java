@@ -0,0 +1,30 @@
+package com.eucl.rw.repository;
+
+import com.eucl.rw.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Query(value = "INSERT INTO job_leases (lease_key, owner, lease_until, completed_at) " +
+            "VALUES (:leaseKey, :owner, :leaseUntil, NULL) " +
+            "ON CONFLICT (lease_key) DO UPDATE SET owner = EXCLUDED.owner, lease_until = EXCLUDED.lease_until " +
+            "WHERE job_leases.completed_at IS NULL AND job_leases.lease_until < :now " +
+            "RETURNING lease_key",
+            nativeQuery = true)
+    List<String> claim(String leaseKey, String owner, LocalDateTime now, LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE JobLease l SET l.completedAt = :completedAt WHERE l.leaseKey = :leaseKey AND l.owner = :owner AND l.completedAt IS NULL")
+    int complete(String leaseKey, String owner, LocalDateTime completedAt);
+
+    @Modifying
+    @Query("DELETE FROM JobLease l WHERE l.leaseUntil < :before")
+    int deleteExpiredBefore(LocalDateTime before);
+}
@@ -1,8 +1,13 @@
 package com.eucl.rw.repository;
 
+import com.eucl.rw.dto.MeterDTO;
 import com.eucl.rw.model.Meter;
 import com.eucl.rw.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
@@ -12,5 +17,26 @@ public interface MeterRepository extends JpaRepository<Meter, String> {
     List<Meter> findByUser(User user);
     Optional<Meter> findByMeterNumber(String meterNumber);
     boolean existsByMeterNumber(String meterNumber);
+    boolean existsByMeterNumberAndUser_Id(String meterNumber, UUID userId);
     List<Meter> findByUser_Id(UUID userId);
+
+    @EntityGraph(Meter.OWNER_GRAPH)
+    @Query("SELECT m FROM Meter m WHERE m.meterNumber IN :meterNumbers")
+    List<Meter> findAllWithUserByMeterNumberIn(Collection<String> meterNumbers);
+
+    @Query("SELECT new com.eucl.rw.dto.MeterDTO(m.meterNumber, m.user.id) FROM Meter m " +
+            "WHERE m.meterNumber > :afterMeterNumber ORDER BY m.meterNumber")
+    List<MeterDTO> findViewsPage(String afterMeterNumber, Limit limit);
+
+    @Query("SELECT new com.eucl.rw.dto.MeterDTO(m.meterNumber, m.user.id) FROM Meter m " +
+            "WHERE m.user.id = :userId ORDER BY m.meterNumber")
+    List<MeterDTO> findViewsByUserId(UUID userId);
+
+    @Query("SELECT m.meterNumber FROM Meter m")
+    List<String> findAllMeterNumbers();
+
+    @Modifying
+    @Query(value = "INSERT INTO meters (meter_number, user_id) VALUES (:meterNumber, :userId) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(String meterNumber, UUID userId);
 }
@@ -1,13 +1,21 @@
 package com.eucl.rw.repository;
 
+import com.eucl.rw.dto.NotificationDTO;
 import com.eucl.rw.model.Notification;
 import com.eucl.rw.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
@@ -17,7 +25,44 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     @Query("SELECT n FROM Notification n WHERE n.issuedDate >= :startDate AND n.issuedDate <= :endDate")
     List<Notification> findNotificationsBetweenDates(LocalDateTime startDate, LocalDateTime endDate);
 
+    @EntityGraph(Notification.DISPATCH_GRAPH)
     List<Notification> findByEmailed(boolean emailed);
 
     List<Notification> findByUser_Id(UUID userId);
+
+    @Query("SELECT new com.eucl.rw.dto.NotificationDTO(n.id, n.meterNumber, n.message, n.issuedDate, n.emailed) " +
+            "FROM Notification n WHERE n.user.id = :userId AND (n.issuedDate, n.id) < (:beforeDate, :beforeId) " +
+            "ORDER BY n.issuedDate DESC, n.id DESC")
+    List<NotificationDTO> findViewsPageByUserId(UUID userId, LocalDateTime beforeDate, UUID beforeId, Limit limit);
+
+    @Query("SELECT new com.eucl.rw.dto.NotificationDTO(n.id, n.meterNumber, n.message, n.issuedDate, n.emailed) " +
+            "FROM Notification n WHERE n.meterNumber = :meterNumber ORDER BY n.issuedDate DESC")
+    List<NotificationDTO> findViewsByMeterNumber(String meterNumber);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TokenRepository.EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.eucl.rw.dto.NotificationDTO(n.id, n.meterNumber, n.message, n.issuedDate, n.emailed) " +
+            "FROM Notification n WHERE n.issuedDate >= :from AND n.issuedDate < :to " +
+            "AND (:emailed IS NULL OR n.emailed = :emailed) " +
+            "AND (:meterNumber IS NULL OR n.meterNumber = :meterNumber) " +
+            "ORDER BY n.issuedDate, n.id")
+    Stream<NotificationDTO> streamViews(LocalDateTime from, LocalDateTime to, Boolean emailed, String meterNumber);
+
+    @Query(value = "UPDATE notifications SET next_attempt_at = :leaseUntil, " +
+            "dispatch_attempts = COALESCE(dispatch_attempts, 0) + 1 WHERE id IN (" +
+            "SELECT id FROM notifications WHERE emailed = false AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :batchSize FOR UPDATE SKIP LOCKED) RETURNING id",
+            nativeQuery = true)
+    List<UUID> claimPendingEmails(LocalDateTime now, LocalDateTime leaseUntil, int batchSize);
+
+    @EntityGraph(Notification.DISPATCH_GRAPH)
+    @Query("SELECT n FROM Notification n WHERE n.id IN :ids")
+    List<Notification> findAllWithUserByIdIn(Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.emailed = true, n.nextAttemptAt = null, n.lastError = null WHERE n.id IN :ids")
+    int markEmailed(Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.nextAttemptAt = :nextAttemptAt, n.lastError = :error WHERE n.id = :id")
+    int scheduleRetry(UUID id, LocalDateTime nextAttemptAt, String error);
 }
@@ -2,11 +2,59 @@ package com.eucl.rw.repository;
 
 import com.eucl.rw.model.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
-public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
-    Optional<RefreshToken> findByToken(String token);
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
 
-    void deleteByToken(String token);
-}
\ No newline at end of file
+    @Query(value = "SELECT r.family_id AS familyId, r.user_id AS userId FROM refresh_token_history h " +
+            "JOIN refresh_tokens r ON r.family_id = h.family_id WHERE h.token_hash = :tokenHash",
+            nativeQuery = true)
+    Optional<RotatedToken> findFamilyBySupersededHash(String tokenHash);
+
+    @Query(value = "WITH rotated AS (UPDATE refresh_tokens SET token_hash = :newHash, expiry_date = :newExpiry " +
+            "WHERE token_hash = :oldHash AND expiry_date > :now RETURNING family_id, user_id), " +
+            "superseded AS (INSERT INTO refresh_token_history (token_hash, family_id, superseded_at) " +
+            "SELECT :oldHash, family_id, :now FROM rotated) " +
+            "SELECT family_id AS familyId, user_id AS userId FROM rotated",
+            nativeQuery = true)
+    List<RotatedToken> rotate(String oldHash, String newHash, Instant now, Instant newExpiry);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    int deleteByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.familyId = :familyId")
+    int deleteByFamilyId(UUID familyId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.userId = :userId")
+    int deleteByUserId(UUID userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_tokens WHERE family_id IN (" +
+            "SELECT family_id FROM refresh_tokens WHERE expiry_date < :now LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(Instant now, int batchSize);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_token_history WHERE token_hash IN (" +
+            "SELECT token_hash FROM refresh_token_history WHERE superseded_at < :before LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteSupersededBatch(Instant before, int batchSize);
+
+    interface RotatedToken {
+        UUID getFamilyId();
+        UUID getUserId();
+    }
+}
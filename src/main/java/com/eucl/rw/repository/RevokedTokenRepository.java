@@ -0,0 +1,28 @@
+package com.eucl.rw.repository;
+
+import com.eucl.rw.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (revocation_key, expires_at, revoked_at) " +
+            "VALUES (:revocationKey, :expiresAt, :revokedAt) ON CONFLICT (revocation_key) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(String revocationKey, LocalDateTime expiresAt, LocalDateTime revokedAt);
+
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    List<RevokedToken> findByRevokedAtAfterAndExpiresAtAfter(LocalDateTime revokedAfter, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -2,7 +2,6 @@ package com.eucl.rw.repository;
 
 import com.eucl.rw.model.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
@@ -14,16 +13,10 @@ public interface TokenExpirationRepository extends JpaRepository<Token, UUID> {
 
     @Query("SELECT t FROM Token t WHERE " +
             "t.tokenStatus = 'NEW' AND " +
-            "t.purchasedDate <= :expirationThreshold AND " +
-            "t.purchasedDate > :notificationThreshold")
+            "t.expiresAt > :windowStart AND " +
+            "t.expiresAt <= :windowEnd")
     List<Token> findTokensNearingExpiration(
-            LocalDateTime expirationThreshold,
-            LocalDateTime notificationThreshold
+            LocalDateTime windowStart,
+            LocalDateTime windowEnd
     );
-
-    @Modifying
-    @Query("UPDATE Token t SET t.tokenStatus = 'EXPIRED' WHERE " +
-            "t.tokenStatus = 'NEW' AND " +
-            "t.purchasedDate <= :expirationDate")
-    int expireOldTokens(LocalDateTime expirationDate);
 }
\ No newline at end of file
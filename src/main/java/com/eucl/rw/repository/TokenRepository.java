@@ -1,16 +1,24 @@
 package com.eucl.rw.repository;
 
 
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.dto.TokenReminderDTO;
 import com.eucl.rw.enums.ETokenStatus;
 import com.eucl.rw.model.Token;
 import com.eucl.rw.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Repository
 public interface TokenRepository extends JpaRepository<Token, UUID> {
@@ -21,26 +29,96 @@ public interface TokenRepository extends JpaRepository<Token, UUID> {
     @Query("SELECT t FROM Token t WHERE t.meter.meterNumber = :meterNumber AND t.tokenStatus = 'NEW'")
     List<Token> findActiveTokensByMeter(String meterNumber);
 
-    @Query("SELECT t FROM Token t WHERE t.purchasedDate <= :expiryDate AND t.tokenStatus = 'NEW'")
+    @EntityGraph(Token.REMINDER_GRAPH)
+    @Query("SELECT t FROM Token t WHERE t.tokenStatus = 'NEW' AND t.expiresAt <= :expiryDate")
     List<Token> findTokensAboutToExpire(LocalDateTime expiryDate);
 
     Optional<Token> findByToken(String token);
 
+    String TOKEN_VIEW = "SELECT new com.eucl.rw.dto.TokenDTO(t.id, t.meter.meterNumber, t.token, t.tokenStatus, " +
+            "t.tokenValueDays, t.purchasedDate, t.expiresAt, t.amount) FROM Token t ";
+
+    String EXPORT_FETCH_SIZE = "1000";
+
+    @Query(TOKEN_VIEW + "WHERE t.token = :token")
+    Optional<TokenDTO> findViewByToken(String token);
+
+    @Query(TOKEN_VIEW + "WHERE t.meter.meterNumber = :meterNumber ORDER BY t.purchasedDate DESC")
+    List<TokenDTO> findViewsByMeterNumber(String meterNumber);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(TOKEN_VIEW + "WHERE t.purchasedDate >= :from AND t.purchasedDate < :to " +
+            "AND (:status IS NULL OR t.tokenStatus = :status) " +
+            "AND (:meterNumber IS NULL OR t.meter.meterNumber = :meterNumber) " +
+            "ORDER BY t.purchasedDate, t.id")
+    Stream<TokenDTO> streamViews(LocalDateTime from, LocalDateTime to, ETokenStatus status, String meterNumber);
+
+    @Query(TOKEN_VIEW + "WHERE (t.purchasedDate, t.id) < (:beforeDate, :beforeId) " +
+            "ORDER BY t.purchasedDate DESC, t.id DESC")
+    List<TokenDTO> findViewsPage(LocalDateTime beforeDate, UUID beforeId, Limit limit);
+
+    @Query(TOKEN_VIEW + "WHERE t.tokenStatus = :status AND (t.purchasedDate, t.id) < (:beforeDate, :beforeId) " +
+            "ORDER BY t.purchasedDate DESC, t.id DESC")
+    List<TokenDTO> findViewsPageByTokenStatus(ETokenStatus status, LocalDateTime beforeDate, UUID beforeId, Limit limit);
+
+    @Query(TOKEN_VIEW + "WHERE t.user.id = :userId AND (t.purchasedDate, t.id) < (:beforeDate, :beforeId) " +
+            "ORDER BY t.purchasedDate DESC, t.id DESC")
+    List<TokenDTO> findViewsPageByUserId(UUID userId, LocalDateTime beforeDate, UUID beforeId, Limit limit);
+
+    boolean existsByToken(String token);
+
+    @Modifying
+    @Query("UPDATE Token t SET t.tokenStatus = 'USED' WHERE " +
+            "t.token = :token AND " +
+            "t.meter.meterNumber = :meterNumber AND " +
+            "t.tokenStatus = 'NEW' AND " +
+            "t.expiresAt > :now")
+    int redeemToken(String token, String meterNumber, LocalDateTime now);
+
+    @Query("SELECT t.token FROM Token t WHERE t.token IN :tokens")
+    List<String> findExistingTokens(Collection<String> tokens);
+
     List<Token> findByUser_Id(UUID userId);
 
+    @EntityGraph(Token.REMINDER_GRAPH)
     @Query("SELECT t FROM Token t WHERE " +
             "t.tokenStatus = 'NEW' AND " +
-            "t.purchasedDate <= :expirationThreshold AND " +
-            "t.purchasedDate > :notificationThreshold")
+            "t.expiresAt > :windowStart AND " +
+            "t.expiresAt <= :windowEnd")
     List<Token> findTokensNearingExpiration(
-            LocalDateTime expirationThreshold,
-            LocalDateTime notificationThreshold
+            LocalDateTime windowStart,
+            LocalDateTime windowEnd
     );
 
-
-    @Modifying
-    @Query("UPDATE Token t SET t.tokenStatus = 'EXPIRED' WHERE " +
+    @Query("SELECT new com.eucl.rw.dto.TokenReminderDTO(t.id, u.id, u.name, u.email, t.meter.meterNumber, t.expiresAt) " +
+            "FROM Token t JOIN t.user u WHERE " +
             "t.tokenStatus = 'NEW' AND " +
-            "t.purchasedDate <= :expirationDate")
-    void expireOldTokens(LocalDateTime expirationDate);
+            "t.expiresAt > :windowStart AND " +
+            "t.expiresAt <= :windowEnd AND " +
+            "MOD(MOD(FUNCTION('hashtext', CAST(u.id AS String)), :shardCount) + :shardCount, :shardCount) = :shard " +
+            "ORDER BY t.meter.meterNumber")
+    List<TokenReminderDTO> findTokenReminders(
+            LocalDateTime windowStart,
+            LocalDateTime windowEnd,
+            int shardCount,
+            int shard
+    );
+
+
+    @Query(value = "UPDATE purchased_tokens SET token_status = 'EXPIRED' WHERE id IN (" +
+            "SELECT id FROM purchased_tokens WHERE token_status = 'NEW' AND expires_at <= :expirationDate " +
+            "AND expires_at >= :fromExpiresAt " +
+            "ORDER BY expires_at LIMIT :chunkSize FOR UPDATE SKIP LOCKED) " +
+            "RETURNING token, expires_at AS expiresAt",
+            nativeQuery = true)
+    List<ExpiredToken> expireTokenChunk(LocalDateTime expirationDate, LocalDateTime fromExpiresAt, int chunkSize);
+
+    @Query(value = "SELECT count(*) FROM purchased_tokens WHERE token_status = 'NEW' AND expires_at <= :expirationDate",
+            nativeQuery = true)
+    long countDueTokens(LocalDateTime expirationDate);
+
+    interface ExpiredToken {
+        String getToken();
+        LocalDateTime getExpiresAt();
+    }
 }
@@ -1,18 +1,58 @@
 package com.eucl.rw.repository;
 
+import com.eucl.rw.enums.ERole;
 import com.eucl.rw.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
+    @EntityGraph(User.PROFILE_GRAPH)
     Optional<User> findByEmail(String email);
+
+    @EntityGraph(User.PROFILE_GRAPH)
+    Optional<User> findWithRolesById(UUID id);
     Optional<User> findByPhone(String phone);
     Optional<User> findByNationalId(String nationalId);
     boolean existsByEmail(String email);
     boolean existsByPhone(String phone);
     boolean existsByNationalId(String nationalId);
+
+    @Query("SELECT u.id FROM User u WHERE u.email > :afterEmail ORDER BY u.email")
+    List<UUID> findIdsPage(String afterEmail, Limit limit);
+
+    @Query("SELECT u.id AS id, u.name AS name, u.email AS email, u.phone AS phone, " +
+            "u.nationalId AS nationalId, r AS role FROM User u LEFT JOIN u.roles r WHERE u.id IN :ids ORDER BY u.email")
+    List<UserRow> findRowsByIdIn(Collection<UUID> ids);
+
+    @Query("SELECT u.id AS id, u.name AS name, u.email AS email, u.phone AS phone, " +
+            "u.nationalId AS nationalId, r AS role FROM User u LEFT JOIN u.roles r WHERE u.id = :id")
+    List<UserRow> findRowsById(UUID id);
+
+    @Query("SELECT COALESCE(u.securityVersion, 0) FROM User u WHERE u.id = :id")
+    Optional<Integer> findSecurityVersionById(UUID id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id AND u.password = :previousPassword")
+    int updatePassword(UUID id, String previousPassword, String password);
+
+    interface UserRow {
+        UUID getId();
+        String getName();
+        String getEmail();
+        String getPhone();
+        String getNationalId();
+        ERole getRole();
+    }
 }
@@ -0,0 +1,28 @@
+package com.eucl.rw.response;
+
+import com.eucl.rw.dto.PurchaseLineDTO;
+import com.eucl.rw.dto.TokenDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PurchaseLineResponse {
+    public static final String PURCHASED = "PURCHASED";
+    public static final String REJECTED = "REJECTED";
+
+    private int line;
+    private String meterNumber;
+    private Double amount;
+    private String status;
+    private String error;
+    private TokenDTO token;
+
+    public static PurchaseLineResponse purchased(int line, PurchaseLineDTO request, TokenDTO token) {
+        return new PurchaseLineResponse(line, request.getMeterNumber(), request.getAmount(), PURCHASED, null, token);
+    }
+
+    public static PurchaseLineResponse rejected(int line, PurchaseLineDTO request, String error) {
+        return new PurchaseLineResponse(line, request.getMeterNumber(), request.getAmount(), REJECTED, error, null);
+    }
+}
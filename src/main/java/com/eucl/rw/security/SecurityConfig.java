@@ -1,10 +1,16 @@
 package com.eucl.rw.security;
 
+import com.eucl.rw.config.RateLimitProperties;
 import com.eucl.rw.service.CustomUserDetailsService;
+import com.eucl.rw.service.SecurityVersionService;
 import com.eucl.rw.util.JwtAuthenticationFilter;
 import com.eucl.rw.util.JwtTokenUtil;
+import jakarta.servlet.DispatcherType;
+import com.eucl.rw.util.RateLimitFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -28,18 +34,24 @@ public class SecurityConfig {
     private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationEntryPoint unauthorizedHandler;
     private final JwtTokenUtil jwtTokenUtil;
+    private final SecurityVersionService securityVersionService;
+    private final RateLimitProperties rateLimitProperties;
 
     public SecurityConfig(CustomUserDetailsService userDetailsService,
             JwtAuthenticationEntryPoint unauthorizedHandler,
-            JwtTokenUtil jwtTokenUtil) {
+            JwtTokenUtil jwtTokenUtil,
+            SecurityVersionService securityVersionService,
+            RateLimitProperties rateLimitProperties) {
         this.userDetailsService = userDetailsService;
         this.unauthorizedHandler = unauthorizedHandler;
         this.jwtTokenUtil = jwtTokenUtil;
+        this.securityVersionService = securityVersionService;
+        this.rateLimitProperties = rateLimitProperties;
     }
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtTokenUtil, userDetailsService);
+        return new JwtAuthenticationFilter(jwtTokenUtil, userDetailsService, securityVersionService);
     }
 
     @Bean
@@ -50,12 +62,18 @@ public class SecurityConfig {
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(unauthorizedHandler))
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Redemption burns a token, so it is the one token route that is not public
+                        .requestMatchers(HttpMethod.POST, "/api/tokens/*/redeem").authenticated()
                         .requestMatchers("/api/auth/**", "/api/tokens/**", "/swagger-ui/**", "/v3/api-docs/**",
                                 "/swagger-resources/**", "/webjars/**")
                         .permitAll()
                         .anyRequest().authenticated());
 
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        if (rateLimitProperties.isEnabled()) {
+            http.addFilterBefore(new RateLimitFilter(rateLimitProperties), JwtAuthenticationFilter.class);
+        }
 
         return http.build();
     }
@@ -79,7 +97,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
\ No newline at end of file
@@ -32,7 +32,7 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Transactional
     public UserDetails loadUserById(UUID id) {
-        User user = userRepository.findById(id).orElseThrow(
+        User user = userRepository.findWithRolesById(id).orElseThrow(
                 () -> new UsernameNotFoundException("User not found with id: " + id)
         );
 
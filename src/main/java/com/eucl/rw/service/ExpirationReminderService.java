@@ -0,0 +1,5 @@
+package com.eucl.rw.service;
+
+public interface ExpirationReminderService {
+    int runReminders();
+}
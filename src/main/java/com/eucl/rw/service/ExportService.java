@@ -0,0 +1,16 @@
+package com.eucl.rw.service;
+
+import com.eucl.rw.enums.EExportFormat;
+import com.eucl.rw.enums.ETokenStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+
+public interface ExportService {
+    long exportTokens(LocalDateTime from, LocalDateTime to, ETokenStatus status, String meterNumber,
+                      EExportFormat format, OutputStream out) throws IOException;
+    long exportNotifications(LocalDateTime from, LocalDateTime to, Boolean emailed, String meterNumber,
+                             EExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,7 @@
+package com.eucl.rw.service;
+
+import com.eucl.rw.dto.TokenDTO;
+
+public interface GroupCommitPurchaseService {
+    TokenDTO purchase(String meterNumber, double amount);
+}
@@ -0,0 +1,10 @@
+package com.eucl.rw.service;
+
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.List;
+import java.util.Map;
+
+public interface MailTransportService {
+    Map<SimpleMailMessage, String> send(List<SimpleMailMessage> messages);
+}
@@ -0,0 +1,10 @@
+package com.eucl.rw.service;
+
+import com.eucl.rw.dto.MeterAllocationStatsDTO;
+
+public interface MeterAllocationService {
+    String allocate();
+    boolean reserve(String meterNumber);
+    void release(String meterNumber);
+    MeterAllocationStatsDTO getStats();
+}
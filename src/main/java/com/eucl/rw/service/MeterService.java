@@ -1,6 +1,9 @@
 package com.eucl.rw.service;
 
+import com.eucl.rw.dto.MeterDTO;
 import com.eucl.rw.model.Meter;
+import com.eucl.rw.model.User;
+import com.eucl.rw.response.CursorPage;
 
 import java.util.List;
 import java.util.UUID;
@@ -8,9 +11,11 @@ import java.util.UUID;
 
 public interface MeterService {
     Meter registerMeter(UUID userId);
+    Meter assignMeter(String meterNumber, User user);
     Meter getMeterByNumber(String meterNumber);
-    List<Meter> getAllMeters();
-    List<Meter> getMetersByUser(UUID userId);
+    CursorPage<MeterDTO> getMeters(String cursor, Integer limit);
+    List<MeterDTO> getMetersByUser(UUID userId);
+    boolean isMeterOwnedBy(String meterNumber, UUID userId);
     void validateMeterNumber(String meterNumber);
     boolean meterExists(String meterNumber);
     void deleteMeter(String meterNumber);
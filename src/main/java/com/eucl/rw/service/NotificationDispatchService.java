@@ -0,0 +1,5 @@
+package com.eucl.rw.service;
+
+public interface NotificationDispatchService {
+    int dispatchPending();
+}
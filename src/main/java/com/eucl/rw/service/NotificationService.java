@@ -1,16 +1,20 @@
 package com.eucl.rw.service;
 
+import com.eucl.rw.dto.NotificationDTO;
 import com.eucl.rw.model.Notification;
+import com.eucl.rw.response.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 
 public interface NotificationService {
     Notification createNotification(UUID userId, String meterNumber, String message);
-    List<Notification> getUserNotifications(UUID userId);
-    List<Notification> getMeterNotifications(String meterNumber);
+    CursorPage<NotificationDTO> getUserNotifications(UUID userId, String cursor, Integer limit);
+    List<NotificationDTO> getMeterNotifications(String meterNumber);
     void sendExpirationNotifications();
+    int sendExpirationNotifications(LocalDateTime windowStart, LocalDateTime windowEnd, int shardCount, int shard);
     void markAsEmailed(UUID notificationId);
     List<Notification> getPendingEmailNotifications();
     void processExpirationWarnings();
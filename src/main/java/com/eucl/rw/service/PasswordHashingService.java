@@ -0,0 +1,7 @@
+package com.eucl.rw.service;
+
+public interface PasswordHashingService {
+    boolean matches(String rawPassword, String encodedPassword);
+    String encode(String rawPassword);
+    boolean needsRehash(String encodedPassword);
+}
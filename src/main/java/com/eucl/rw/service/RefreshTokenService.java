@@ -1,15 +1,20 @@
-
 package com.eucl.rw.service;
 
 import com.eucl.rw.model.RefreshToken;
 import com.eucl.rw.model.User;
 
+import java.util.UUID;
+
 public interface RefreshTokenService {
     RefreshToken createRefreshToken(User user);
 
     RefreshToken validateRefreshToken(String token);
 
-    RefreshToken rotateRefreshToken(RefreshToken oldToken);
+    RefreshToken rotateRefreshToken(String token);
 
     void deleteRefreshToken(String token);
-}
\ No newline at end of file
+
+    int revokeUserSessions(UUID userId);
+
+    int purgeExpiredTokens();
+}
@@ -0,0 +1,8 @@
+package com.eucl.rw.service;
+
+import java.util.UUID;
+
+public interface SecurityVersionService {
+    boolean isCurrent(UUID userId, int version);
+    void evict(UUID userId);
+}
@@ -0,0 +1,10 @@
+package com.eucl.rw.service;
+
+import java.time.LocalDateTime;
+
+public interface TokenRevocationService {
+    void revoke(String revocationKey, LocalDateTime expiresAt);
+    boolean isRevoked(String revocationKey);
+    int synchronize();
+    int purgeExpired();
+}
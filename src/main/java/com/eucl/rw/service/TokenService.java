@@ -1,7 +1,12 @@
 package com.eucl.rw.service;
 
+import com.eucl.rw.dto.PurchaseLineDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.dto.TokenExpiryReportDTO;
 import com.eucl.rw.enums.ETokenStatus;
 import com.eucl.rw.model.Token;
+import com.eucl.rw.response.CursorPage;
+import com.eucl.rw.response.PurchaseLineResponse;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -9,14 +14,17 @@ import java.util.UUID;
 
 
 public interface TokenService {
-    Token generateToken(String meterNumber, double amount);
-    Token validateToken(String token);
-    List<Token> getTokensByMeter(String meterNumber);
-    List<Token> getUserTokens(UUID userId);
-    List<Token> getTokensByStatus(ETokenStatus status);
+    TokenDTO generateToken(String meterNumber, double amount);
+    List<PurchaseLineResponse> generateTokens(List<PurchaseLineDTO> lines);
+    TokenDTO validateToken(String token);
+    TokenDTO getTokenInfo(String token);
+    TokenDTO redeemToken(String token, String meterNumber);
+    List<TokenDTO> getTokensByMeter(String meterNumber);
+    CursorPage<TokenDTO> getUserTokens(UUID userId, String cursor, Integer limit);
+    CursorPage<TokenDTO> getTokens(ETokenStatus status, String cursor, Integer limit);
     String formatTokenDisplay(String token);
     List<Token> checkExpiringTokens(LocalDateTime expirationThreshold);
-    void expireTokens(LocalDateTime expirationDate);
+    TokenExpiryReportDTO expireTokens(LocalDateTime expirationDate);
     ETokenStatus checkTokenStatus(String token);
     double calculateTokenDays(double amount);
 }
@@ -0,0 +1,7 @@
+package com.eucl.rw.service;
+
+public interface TokenSupplyService {
+    String nextToken();
+    int available();
+    void refill();
+}
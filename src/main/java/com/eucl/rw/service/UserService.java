@@ -1,8 +1,10 @@
 package com.eucl.rw.service;
 
+import com.eucl.rw.dto.MeterDTO;
+import com.eucl.rw.dto.UserDTO;
 import com.eucl.rw.enums.ERole;
-import com.eucl.rw.model.Meter;
 import com.eucl.rw.model.User;
+import com.eucl.rw.response.CursorPage;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.List;
@@ -14,12 +16,14 @@ public interface UserService {
     User registerUser(User user, Set<ERole> roles);
     User authenticateUser(String email, String password);
     User getUserById(UUID id);
+    UserDTO getUserView(UUID id);
     User getUserByEmail(String email);
-    List<User> getAllUsers();
+    CursorPage<UserDTO> getUsers(String cursor, Integer limit);
     User updateUser(UUID userId, User userDetails);
     void deleteUser(UUID userId);
+    User updateUserRoles(UUID userId, Set<ERole> roles);
     boolean hasAdminRole(User user);
     void assignMeterToUser(UUID userId, String meterNumber);
-    List<Meter> getUserMeters(UUID userId);
+    List<MeterDTO> getUserMeters(UUID userId);
     UserDetails loadUserByUsername(String emailFromToken);
 }
@@ -20,6 +20,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @RequiredArgsConstructor
@@ -42,6 +43,9 @@ public class AuthServiceImpl implements AuthService {
             String refreshToken = refreshTokenService.createRefreshToken(user).getToken();
             logger.info("User {} logged in successfully", email);
             return new AuthResponse(accessToken, refreshToken);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Login for user {} rejected, password hashing queue is full", email);
+            throw e;
         } catch (Exception e) {
             logger.error("Login failed for user {}: {}", email, e.getMessage());
             throw new SecurityException("Invalid credentials", e);
@@ -80,10 +84,10 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public AuthResponse refreshToken(String refreshToken) {
         try {
-            RefreshToken token = refreshTokenService.validateRefreshToken(refreshToken);
+            RefreshToken token = refreshTokenService.rotateRefreshToken(refreshToken);
             User user = userService.getUserById(token.getUserId());
             String newAccessToken = jwtTokenUtil.generateAccessToken(user);
-            String newRefreshToken = refreshTokenService.rotateRefreshToken(token).getToken();
+            String newRefreshToken = token.getToken();
             logger.info("Token refreshed for user ID: {}", user.getId());
             return new AuthResponse(newAccessToken, newRefreshToken);
         } catch (Exception e) {
@@ -0,0 +1,121 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.repository.JobLeaseRepository;
+import com.eucl.rw.service.ExpirationReminderService;
+import com.eucl.rw.service.NotificationService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+@Service
+public class ExpirationReminderServiceImpl implements ExpirationReminderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpirationReminderServiceImpl.class);
+
+    private static final String JOB_NAME = "expiry-reminders";
+
+    private final NotificationService notificationService;
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore parallelism;
+    private final String nodeId;
+
+    @Value("${app.reminders.shards:8}")
+    private int shardCount;
+
+    @Value("${app.reminders.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${app.reminders.lease-retention-hours:24}")
+    private long leaseRetentionHours;
+
+    public ExpirationReminderServiceImpl(NotificationService notificationService,
+                                         JobLeaseRepository jobLeaseRepository,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${app.reminders.parallelism:4}") int parallelism,
+                                         @Value("${app.reminders.node-id:}") String nodeId) {
+        this.notificationService = notificationService;
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.parallelism = new Semaphore(Math.max(1, parallelism));
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.reminders.interval-ms:60000}")
+    public int runReminders() {
+        LocalDateTime windowEnd = LocalDateTime.now().plusHours(5).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime windowStart = windowEnd.minusHours(1);
+
+        List<Future<Integer>> shards = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            shards.add(workers.submit(() -> runShard(windowStart, windowEnd, current)));
+        }
+
+        int created = 0;
+        for (Future<Integer> shard : shards) {
+            try {
+                created += shard.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return created;
+            } catch (Exception e) {
+                logger.error("Reminder shard failed: {}", e.getMessage());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                jobLeaseRepository.deleteExpiredBefore(LocalDateTime.now().minusHours(leaseRetentionHours)));
+        if (created > 0) {
+            logger.info("Created {} expiration reminders for tokens expiring by {}", created, windowEnd);
+        }
+        return created;
+    }
+
+    private int runShard(LocalDateTime windowStart, LocalDateTime windowEnd, int shard) throws InterruptedException {
+        String leaseKey = JOB_NAME + ":" + windowEnd + ":" + shard + "/" + shardCount;
+        parallelism.acquire();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> claimed = transactionTemplate.execute(status ->
+                    jobLeaseRepository.claim(leaseKey, nodeId, now, now.plus(Duration.ofMillis(leaseMs))));
+            if (claimed == null || claimed.isEmpty()) {
+                return 0;
+            }
+
+            Integer created = transactionTemplate.execute(status -> {
+                int count = notificationService.sendExpirationNotifications(windowStart, windowEnd, shardCount, shard);
+                if (jobLeaseRepository.complete(leaseKey, nodeId, LocalDateTime.now()) == 0) {
+                    throw new RuntimeException("Lease " + leaseKey + " was taken over by another node");
+                }
+                return count;
+            });
+            return created == null ? 0 : created;
+        } finally {
+            parallelism.release();
+        }
+    }
+}
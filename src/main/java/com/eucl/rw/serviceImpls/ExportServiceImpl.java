@@ -0,0 +1,153 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.dto.NotificationDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.enums.EExportFormat;
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.repository.NotificationRepository;
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.service.ExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+@Transactional(readOnly = true)
+public class ExportServiceImpl implements ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportServiceImpl.class);
+
+    private static final LocalDateTime EXPORT_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime EXPORT_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final List<String> TOKEN_COLUMNS = List.of("id", "meterNumber", "token", "tokenStatus",
+            "tokenValueDays", "purchasedDate", "expiresAt", "amount");
+    private static final List<String> NOTIFICATION_COLUMNS = List.of("id", "meterNumber", "message", "issuedDate", "emailed");
+
+    private final TokenRepository tokenRepository;
+    private final NotificationRepository notificationRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final MeterRegistry meterRegistry;
+
+    public ExportServiceImpl(TokenRepository tokenRepository, NotificationRepository notificationRepository,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.tokenRepository = tokenRepository;
+        this.notificationRepository = notificationRepository;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public long exportTokens(LocalDateTime from, LocalDateTime to, ETokenStatus status, String meterNumber,
+                             EExportFormat format, OutputStream out) throws IOException {
+        try (Stream<TokenDTO> rows = tokenRepository.streamViews(start(from), end(to), status, blankToNull(meterNumber))) {
+            return export("tokens", rows, format, TOKEN_COLUMNS, token -> Arrays.asList(
+                    token.getId(), token.getMeterNumber(), token.getToken(), token.getTokenStatus(),
+                    token.getTokenValueDays(), token.getPurchasedDate(), token.getExpiresAt(), token.getAmount()), out);
+        }
+    }
+
+    @Override
+    public long exportNotifications(LocalDateTime from, LocalDateTime to, Boolean emailed, String meterNumber,
+                                    EExportFormat format, OutputStream out) throws IOException {
+        try (Stream<NotificationDTO> rows = notificationRepository.streamViews(start(from), end(to), emailed, blankToNull(meterNumber))) {
+            return export("notifications", rows, format, NOTIFICATION_COLUMNS, notification -> Arrays.asList(
+                    notification.getId(), notification.getMeterNumber(), notification.getMessage(),
+                    notification.getIssuedDate(), notification.isEmailed()), out);
+        }
+    }
+
+    private <T> long export(String name, Stream<T> rows, EExportFormat format, List<String> columns,
+                            Function<T, List<Object>> values, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Iterator<T> iterator = rows.iterator();
+        if (format == EExportFormat.CSV) {
+            writeCsvLine(writer, columns);
+            while (iterator.hasNext()) {
+                checkNotCancelled();
+                writeCsvLine(writer, values.apply(iterator.next()));
+                count++;
+            }
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            while (iterator.hasNext()) {
+                checkNotCancelled();
+                rowWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+            generator.close();
+        }
+        writer.flush();
+
+        meterRegistry.counter("exports.rows", "export", name, "format", format.name()).increment(count);
+        logger.info("Exported {} {} as {} in {} ms", count, name, format, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    // A timed-out export is cancelled by interrupting its thread; stop and let the cursor and connection go.
+    private static void checkNotCancelled() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Export cancelled");
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writer.write(csvField(value.toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static LocalDateTime start(LocalDateTime from) {
+        return from == null ? EXPORT_START : from;
+    }
+
+    private static LocalDateTime end(LocalDateTime to) {
+        return to == null ? EXPORT_END : to;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
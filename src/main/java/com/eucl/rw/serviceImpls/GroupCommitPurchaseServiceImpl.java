@@ -0,0 +1,176 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.dto.PurchaseLineDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.response.PurchaseLineResponse;
+import com.eucl.rw.service.GroupCommitPurchaseService;
+import com.eucl.rw.service.TokenService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class GroupCommitPurchaseServiceImpl implements GroupCommitPurchaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitPurchaseServiceImpl.class);
+
+    private final TokenService tokenService;
+
+    @Value("${app.purchase.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.purchase.group-commit.max-batch-size:64}")
+    private int maxBatchSize;
+
+    @Value("${app.purchase.group-commit.max-delay-ms:5}")
+    private long maxDelayMs;
+
+    @Value("${app.purchase.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.purchase.group-commit.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private BlockingQueue<PendingPurchase> queue;
+    private Thread committer;
+    private volatile boolean running;
+
+    public GroupCommitPurchaseServiceImpl(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        committer = Thread.ofPlatform().name("purchase-group-commit").daemon().start(this::commitLoop);
+        logger.info("Group-commit purchases enabled: up to {} purchases or {} ms per transaction",
+                maxBatchSize, maxDelayMs);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        committer.interrupt();
+        committer.join(TimeUnit.SECONDS.toMillis(5));
+        failQueued("Purchase service is shutting down");
+    }
+
+    @Override
+    public TokenDTO purchase(String meterNumber, double amount) {
+        if (!enabled) {
+            return tokenService.generateToken(meterNumber, amount);
+        }
+
+        if (!running || !committer.isAlive()) {
+            throw new RuntimeException("Purchases are temporarily unavailable, please retry");
+        }
+        PendingPurchase pending = new PendingPurchase(new PurchaseLineDTO(meterNumber, amount), new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new RuntimeException("Too many purchases in progress, please retry");
+        }
+        try {
+            return pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Purchase failed, please retry", e.getCause());
+        } catch (TimeoutException e) {
+            // The batch may still commit, so the caller must not simply buy again.
+            throw new RuntimeException("Purchase was not confirmed in time, check your tokens before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for purchase");
+        }
+    }
+
+    private void commitLoop() {
+        List<PendingPurchase> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < maxBatchSize) {
+                    PendingPurchase next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    commit(batch);
+                } catch (Throwable e) {
+                    // Keep the committer alive; only this batch's purchases fail.
+                    logger.error("Group commit of {} purchases failed", batch.size(), e);
+                    batch.forEach(pending -> pending.result().completeExceptionally(
+                            new RuntimeException("Purchase failed, please retry", e)));
+                }
+                batch.clear();
+            }
+        }
+        failQueued("Purchase service is shutting down");
+    }
+
+    private void failQueued(String reason) {
+        PendingPurchase pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RuntimeException(reason));
+        }
+    }
+
+    private void commit(List<PendingPurchase> batch) {
+        List<PurchaseLineResponse> results;
+        try {
+            results = tokenService.generateTokens(batch.stream().map(PendingPurchase::line).toList());
+        } catch (RuntimeException e) {
+            logger.warn("Group commit of {} purchases failed, retrying one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::commitAlone);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            PurchaseLineResponse result = results.get(i);
+            if (PurchaseLineResponse.PURCHASED.equals(result.getStatus())) {
+                batch.get(i).result().complete(result.getToken());
+            } else {
+                batch.get(i).result().completeExceptionally(new RuntimeException(result.getError()));
+            }
+        }
+    }
+
+    private void commitAlone(PendingPurchase pending) {
+        try {
+            PurchaseLineDTO line = pending.line();
+            pending.result().complete(tokenService.generateToken(line.getMeterNumber(), line.getAmount()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private record PendingPurchase(PurchaseLineDTO line, CompletableFuture<TokenDTO> result) {
+    }
+}
@@ -0,0 +1,217 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.service.MailTransportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class MailTransportServiceImpl implements MailTransportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailTransportServiceImpl.class);
+
+    private static final int MAX_ERROR_LENGTH = 255;
+    private static final String DEFAULT_PROTOCOL = "smtp";
+
+    private final JavaMailSenderImpl mailSender;
+    private final int messagesPerSession;
+    // Authenticated SMTP connections, each kept open across sessions and used by one sender at a time
+    private final BlockingQueue<Connection> connections;
+    private final List<Connection> allConnections = new ArrayList<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MailTransportServiceImpl(JavaMailSenderImpl mailSender,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.mail.transport.connections:4}") int connections,
+                                    @Value("${app.mail.transport.messages-per-session:50}") int messagesPerSession) {
+        this.mailSender = mailSender;
+        this.messagesPerSession = Math.max(1, messagesPerSession);
+        this.connections = new ArrayBlockingQueue<>(Math.max(1, connections));
+        for (int i = 0; i < Math.max(1, connections); i++) {
+            Connection connection = new Connection(i, meterRegistry);
+            this.connections.add(connection);
+            this.allConnections.add(connection);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdown();
+        try {
+            senders.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        allConnections.forEach(Connection::close);
+    }
+
+    @Override
+    public Map<SimpleMailMessage, String> send(List<SimpleMailMessage> messages) {
+        Map<SimpleMailMessage, String> failures = new IdentityHashMap<>();
+        List<List<SimpleMailMessage>> sessions = new ArrayList<>();
+        List<Future<Map<SimpleMailMessage, String>>> results = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += messagesPerSession) {
+            List<SimpleMailMessage> session = messages.subList(from, Math.min(from + messagesPerSession, messages.size()));
+            sessions.add(session);
+            results.add(senders.submit(() -> sendSession(session)));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                failures.putAll(results.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while sending mail");
+            } catch (ExecutionException e) {
+                // Nothing in the session is known to be sent, so all of it goes back for retry.
+                String error = truncate(e.getCause().getMessage());
+                logger.error("Mail session failed: {}", error);
+                sessions.get(i).forEach(message -> failures.put(message, error));
+            }
+        }
+        return failures;
+    }
+
+    private Map<SimpleMailMessage, String> sendSession(List<SimpleMailMessage> session) throws InterruptedException {
+        Map<SimpleMailMessage, String> failures = new IdentityHashMap<>();
+        Connection connection = connections.take();
+        long start = System.nanoTime();
+        try {
+            connection.dropIfStale();
+            for (int next = 0; next < session.size(); next++) {
+                try {
+                    connection.open();
+                } catch (MessagingException e) {
+                    // The server is unreachable; the rest of the session waits for the next dispatch.
+                    String error = truncate(e.getMessage());
+                    session.subList(next, session.size()).forEach(message -> failures.put(message, error));
+                    break;
+                }
+                SimpleMailMessage message = session.get(next);
+                try {
+                    connection.send(toMimeMessage(message));
+                } catch (MessagingException | RuntimeException e) {
+                    failures.put(message, truncate(e.getMessage()));
+                }
+            }
+        } finally {
+            connection.sessions.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            connection.sent.increment(session.size() - failures.size());
+            connection.failed.increment(failures.size());
+            connections.add(connection);
+        }
+        return failures;
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        message.copyTo(new MimeMailMessage(mimeMessage));
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    private String truncate(String error) {
+        String text = String.valueOf(error);
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+
+    private final class Connection {
+        private final Timer sessions;
+        private final Counter sent;
+        private final Counter failed;
+        private final Counter connects;
+        private Transport transport;
+
+        private Connection(int id, MeterRegistry meterRegistry) {
+            String tag = String.valueOf(id);
+            this.sessions = meterRegistry.timer("mail.transport.sessions", "connection", tag);
+            this.sent = meterRegistry.counter("mail.transport.messages", "connection", tag, "outcome", "sent");
+            this.failed = meterRegistry.counter("mail.transport.messages", "connection", tag, "outcome", "failed");
+            this.connects = meterRegistry.counter("mail.transport.connects", "connection", tag);
+        }
+
+        /**
+         * Closes a connection the server has dropped while it sat idle. SMTP's isConnected() sends a NOOP, so this
+         * is checked once per session rather than per message.
+         */
+        private void dropIfStale() {
+            if (transport != null && !transport.isConnected()) {
+                close();
+            }
+        }
+
+        private void open() throws MessagingException {
+            if (transport != null) {
+                return;
+            }
+            String protocol = mailSender.getProtocol();
+            if (protocol == null) {
+                protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+            }
+            Transport opened = mailSender.getSession().getTransport(protocol == null ? DEFAULT_PROTOCOL : protocol);
+            String username = mailSender.getUsername();
+            String password = mailSender.getPassword();
+            if ("".equals(username)) {
+                username = null;
+                if ("".equals(password)) {
+                    password = null;
+                }
+            }
+            opened.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+            connects.increment();
+            transport = opened;
+        }
+
+        private void send(MimeMessage message) throws MessagingException {
+            Address[] recipients = message.getAllRecipients();
+            try {
+                transport.sendMessage(message, recipients == null ? new Address[0] : recipients);
+            } catch (MessagingException e) {
+                // A rejected message leaves the connection usable; a broken one is reopened for the next message.
+                if (!transport.isConnected()) {
+                    close();
+                }
+                throw e;
+            }
+        }
+
+        private void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("Closing SMTP connection failed: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.dto.MeterAllocationStatsDTO;
+import com.eucl.rw.repository.MeterRepository;
+import com.eucl.rw.service.MeterAllocationService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Service
+public class MeterAllocationServiceImpl implements MeterAllocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MeterAllocationServiceImpl.class);
+
+    private static final int CAPACITY = 1_000_000; // 6-digit meter numbers
+    private static final int WORDS = CAPACITY / Long.SIZE;
+
+    private final MeterRepository meterRepository;
+    private final AtomicLongArray bitmap = new AtomicLongArray(WORDS);
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public MeterAllocationServiceImpl(MeterRepository meterRepository) {
+        this.meterRepository = meterRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        for (String meterNumber : meterRepository.findAllMeterNumbers()) {
+            reserve(meterNumber);
+        }
+        logger.info("Loaded meter number bitmap: {} of {} numbers allocated", allocated.get(), CAPACITY);
+    }
+
+    @Override
+    public String allocate() {
+        int start = ThreadLocalRandom.current().nextInt(WORDS);
+        for (int i = 0; i < WORDS; i++) {
+            int word = (start + i) % WORDS;
+            long bits;
+            while ((bits = bitmap.get(word)) != -1L) {
+                long freeBit = Long.lowestOneBit(~bits);
+                if (bitmap.compareAndSet(word, bits, bits | freeBit)) {
+                    allocated.incrementAndGet();
+                    return String.format("%06d", word * Long.SIZE + Long.numberOfTrailingZeros(freeBit));
+                }
+            }
+        }
+        throw new RuntimeException("No meter numbers available");
+    }
+
+    @Override
+    public boolean reserve(String meterNumber) {
+        int index = toIndex(meterNumber);
+        if (index >= 0 && setBit(index)) {
+            allocated.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void release(String meterNumber) {
+        int index = toIndex(meterNumber);
+        if (index >= 0 && clearBit(index)) {
+            allocated.decrementAndGet();
+        }
+    }
+
+    @Override
+    public MeterAllocationStatsDTO getStats() {
+        int freeRuns = 0;
+        int largestFreeRun = 0;
+        int currentRun = 0;
+        for (int word = 0; word < WORDS; word++) {
+            long bits = bitmap.get(word);
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                if ((bits & (1L << bit)) == 0) {
+                    if (currentRun++ == 0) {
+                        freeRuns++;
+                    }
+                    largestFreeRun = Math.max(largestFreeRun, currentRun);
+                } else {
+                    currentRun = 0;
+                }
+            }
+        }
+        int used = allocated.get();
+        int free = CAPACITY - used;
+        double fragmentation = free == 0 ? 0 : 1 - (double) largestFreeRun / free;
+        return new MeterAllocationStatsDTO(CAPACITY, used, free, (double) used / CAPACITY,
+                freeRuns, largestFreeRun, fragmentation);
+    }
+
+    private boolean setBit(int index) {
+        long mask = 1L << (index % Long.SIZE);
+        long bits;
+        do {
+            bits = bitmap.get(index / Long.SIZE);
+            if ((bits & mask) != 0) {
+                return false;
+            }
+        } while (!bitmap.compareAndSet(index / Long.SIZE, bits, bits | mask));
+        return true;
+    }
+
+    private boolean clearBit(int index) {
+        long mask = 1L << (index % Long.SIZE);
+        long bits;
+        do {
+            bits = bitmap.get(index / Long.SIZE);
+            if ((bits & mask) == 0) {
+                return false;
+            }
+        } while (!bitmap.compareAndSet(index / Long.SIZE, bits, bits & ~mask));
+        return true;
+    }
+
+    private int toIndex(String meterNumber) {
+        if (meterNumber == null || meterNumber.length() != 6) {
+            logger.warn("Ignoring meter number outside the 6-digit space: {}", meterNumber);
+            return -1;
+        }
+        try {
+            return Integer.parseInt(meterNumber);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring non-numeric meter number: {}", meterNumber);
+            return -1;
+        }
+    }
+}
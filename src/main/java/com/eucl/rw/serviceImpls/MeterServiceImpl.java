@@ -1,50 +1,110 @@
 package com.eucl.rw.serviceImpls;
 
+import com.eucl.rw.config.PaginationProperties;
+import com.eucl.rw.dto.MeterDTO;
 import com.eucl.rw.model.Meter;
 import com.eucl.rw.model.User;
 import com.eucl.rw.repository.MeterRepository;
 import com.eucl.rw.repository.UserRepository;
+import com.eucl.rw.response.CursorPage;
+import com.eucl.rw.service.MeterAllocationService;
 import com.eucl.rw.service.MeterService;
+import com.eucl.rw.util.PageCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.transaction.Transactional;
-import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
-@AllArgsConstructor
 public class MeterServiceImpl implements MeterService {
+    private static final Logger logger = LoggerFactory.getLogger(MeterServiceImpl.class);
+    private static final int MAX_CACHED_METERS_PER_USER = 64;
+    private static final int ALLOCATION_ATTEMPTS = 10;
+
     private final MeterRepository meterRepository;
     private final UserRepository userRepository;
-
-
+    private final MeterAllocationService meterAllocationService;
+    private final PaginationProperties pagination;
+    // Invalidation only reaches this node, so a transfer made on another node is picked up once the entry ages out
+    private final Cache<UUID, Map<String, Boolean>> ownershipCache;
+
+    public MeterServiceImpl(MeterRepository meterRepository,
+                            UserRepository userRepository,
+                            MeterAllocationService meterAllocationService,
+                            PaginationProperties pagination,
+                            @Value("${app.meters.ownership-cache.ttl-ms:5000}") long ttlMs) {
+        this.meterRepository = meterRepository;
+        this.userRepository = userRepository;
+        this.meterAllocationService = meterAllocationService;
+        this.pagination = pagination;
+        this.ownershipCache = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
 
     @Override
     public Meter registerMeter(UUID userId) {
-        String meterNumber = generateMeterNumber();
-
-        if (meterNumber == null || meterNumber.length() != 6) {
-            throw new RuntimeException("Meter number must be 6 digits long");
-        }
-        if (meterRepository.existsByMeterNumber(meterNumber)) {
-            throw new RuntimeException("Meter number already exists");
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
         }
 
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
-        Meter meter = new Meter(meterNumber, user, null);
-        return meterRepository.save(meter);
+        // The bitmap only knows this node's meters, so a number may already be taken elsewhere. It then
+        // stays marked as taken here and another one is tried.
+        for (int attempt = 0; attempt < ALLOCATION_ATTEMPTS; attempt++) {
+            String meterNumber = meterAllocationService.allocate();
+            // Registered before the insert, so a rollback hands the number back even when the insert throws.
+            AtomicBoolean takenElsewhere = new AtomicBoolean();
+            onCompletion(committed -> {
+                if (!committed && !takenElsewhere.get()) {
+                    meterAllocationService.release(meterNumber);
+                }
+            });
+            if (meterRepository.insertIfAbsent(meterNumber, userId) == 0) {
+                takenElsewhere.set(true);
+                meterAllocationService.reserve(meterNumber);
+                logger.warn("Meter number {} is already registered, allocating another", meterNumber);
+                continue;
+            }
+            onCompletion(committed -> ownershipCache.invalidate(userId));
+            return getMeterByNumber(meterNumber);
+        }
+        throw new RuntimeException("Could not allocate a meter number, please retry");
     }
 
-    private String generateMeterNumber() {
-        String meterNumber;
-        do {
-            // Generates 6-digit numbers (000000-999999)
-            int randomDigits = (int)(Math.random() * 1_000_000);
-            meterNumber = String.format("%06d", randomDigits);
-        } while (meterRepository.existsByMeterNumber(meterNumber));
-        return meterNumber;
+    @Override
+    public Meter assignMeter(String meterNumber, User user) {
+        Meter meter = meterRepository.findByMeterNumber(meterNumber).orElseGet(() -> new Meter(meterNumber, null, null));
+        UUID previousOwnerId = meter.getUser() == null ? null : meter.getUser().getId();
+        meter.setUser(user);
+        Meter saved = meterRepository.save(meter);
+
+        boolean reserved = meterAllocationService.reserve(meterNumber);
+        onCompletion(committed -> {
+            if (!committed && reserved) {
+                meterAllocationService.release(meterNumber);
+            }
+            ownershipCache.invalidate(user.getId());
+            if (previousOwnerId != null) {
+                ownershipCache.invalidate(previousOwnerId);
+            }
+        });
+        return saved;
     }
 
     @Override
@@ -54,13 +114,31 @@ public class MeterServiceImpl implements MeterService {
     }
 
     @Override
-    public List<Meter> getAllMeters() {
-        return meterRepository.findAll();
+    public CursorPage<MeterDTO> getMeters(String cursor, Integer limit) {
+        int pageSize = pagination.limit(limit);
+        String afterMeterNumber = cursor == null || cursor.isBlank() ? "" : PageCursor.decode(cursor, 1, keys -> keys[0]);
+        return CursorPage.of(meterRepository.findViewsPage(afterMeterNumber, Limit.of(pageSize + 1)), pageSize,
+                meter -> PageCursor.encode(meter.getMeterNumber()));
+    }
+
+    @Override
+    public List<MeterDTO> getMetersByUser(UUID userId) {
+        return meterRepository.findViewsByUserId(userId);
     }
 
     @Override
-    public List<Meter> getMetersByUser(UUID userId) {
-        return meterRepository.findByUser_Id(userId);
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public boolean isMeterOwnedBy(String meterNumber, UUID userId) {
+        Map<String, Boolean> owned = ownershipCache.get(userId, id -> new ConcurrentHashMap<>());
+        Boolean cached = owned.get(meterNumber);
+        if (cached != null) {
+            return cached;
+        }
+        boolean result = meterRepository.existsByMeterNumberAndUser_Id(meterNumber, userId);
+        if (owned.size() < MAX_CACHED_METERS_PER_USER) {
+            owned.put(meterNumber, result);
+        }
+        return result;
     }
 
     @Override
@@ -78,15 +156,33 @@ public class MeterServiceImpl implements MeterService {
     @Override
     public void deleteMeter(String meterNumber) {
         Meter meter = getMeterByNumber(meterNumber);
+        UUID ownerId = meter.getUser().getId();
         meterRepository.delete(meter);
+        onCompletion(committed -> {
+            if (committed) {
+                meterAllocationService.release(meterNumber);
+            }
+            ownershipCache.invalidate(ownerId);
+        });
     }
 
     @Override
     public void transferMeter(String meterNumber, UUID newUserId) {
         Meter meter = getMeterByNumber(meterNumber);
+        UUID previousOwnerId = meter.getUser().getId();
         User newUser = userRepository.findById(newUserId)
                 .orElseThrow(() -> new RuntimeException("New user not found"));
         meter.setUser(newUser);
         meterRepository.save(meter);
+        onCompletion(committed -> ownershipCache.invalidateAll(List.of(previousOwnerId, newUserId)));
+    }
+
+    private void onCompletion(Consumer<Boolean> callback) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
     }
 }
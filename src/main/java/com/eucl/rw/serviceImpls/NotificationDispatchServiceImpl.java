@@ -0,0 +1,174 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.model.Notification;
+import com.eucl.rw.repository.NotificationRepository;
+import com.eucl.rw.service.MailTransportService;
+import com.eucl.rw.service.NotificationDispatchService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class NotificationDispatchServiceImpl implements NotificationDispatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatchServiceImpl.class);
+
+    private final NotificationRepository notificationRepository;
+    private final MailTransportService mailTransportService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.notifications.dispatch.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.notifications.dispatch.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.dispatch.initial-backoff-ms:30000}")
+    private long initialBackoffMs;
+
+    @Value("${app.notifications.dispatch.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.notifications.dispatch.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${app.notifications.dispatch.workers:2}")
+    private int workerCount;
+
+    @Value("${app.notifications.dispatch.interval-ms:5000}")
+    private long idleIntervalMs;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public NotificationDispatchServiceImpl(NotificationRepository notificationRepository,
+                                           MailTransportService mailTransportService,
+                                           PlatformTransactionManager transactionManager) {
+        this.notificationRepository = notificationRepository;
+        this.mailTransportService = mailTransportService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("notification-dispatch-" + i).start(this::dispatchLoop));
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Override
+    public int dispatchPending() {
+        return dispatchBatch().sent();
+    }
+
+    /**
+     * Each worker claims and sends its own batch, so SKIP LOCKED hands concurrent workers disjoint rows. A worker
+     * only pauses once the outbox has nothing due.
+     */
+    private void dispatchLoop() {
+        while (running) {
+            boolean idle;
+            try {
+                idle = dispatchBatch().claimed() == 0;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                logger.error("Notification dispatch failed", e);
+                idle = true;
+            }
+            if (idle) {
+                try {
+                    Thread.sleep(idleIntervalMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private DispatchResult dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UUID> claimed = transactionTemplate.execute(status ->
+                notificationRepository.claimPendingEmails(now, now.plus(Duration.ofMillis(leaseMs)), batchSize));
+        if (claimed == null || claimed.isEmpty()) {
+            return new DispatchResult(0, 0);
+        }
+
+        List<Notification> notifications = notificationRepository.findAllWithUserByIdIn(claimed);
+        Map<SimpleMailMessage, UUID> messages = new IdentityHashMap<>();
+        List<SimpleMailMessage> outgoing = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            SimpleMailMessage mailMessage = new SimpleMailMessage();
+            mailMessage.setTo(notification.getUser().getEmail());
+            mailMessage.setSubject("EUCL Token Expiration Notification");
+            mailMessage.setText(notification.getMessage());
+            messages.put(mailMessage, notification.getId());
+            outgoing.add(mailMessage);
+        }
+
+        Map<UUID, String> failures = new HashMap<>();
+        mailTransportService.send(outgoing)
+                .forEach((message, error) -> failures.put(messages.get(message), error));
+
+        List<UUID> sent = notifications.stream()
+                .map(Notification::getId)
+                .filter(id -> !failures.containsKey(id))
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                notificationRepository.markEmailed(sent);
+            }
+            for (Notification notification : notifications) {
+                String error = failures.get(notification.getId());
+                if (error != null) {
+                    notificationRepository.scheduleRetry(notification.getId(), nextAttempt(notification), error);
+                }
+            }
+        });
+
+        if (!failures.isEmpty()) {
+            logger.warn("Emailed {} notifications, {} failed and were rescheduled", sent.size(), failures.size());
+        }
+        return new DispatchResult(claimed.size(), sent.size());
+    }
+
+    private LocalDateTime nextAttempt(Notification notification) {
+        int attempts = notification.getDispatchAttempts() == null ? 1 : notification.getDispatchAttempts();
+        if (attempts >= maxAttempts) {
+            logger.error("Giving up on notification {} after {} attempts", notification.getId(), attempts);
+            return null;
+        }
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+        return LocalDateTime.now().plus(Duration.ofMillis(backoff));
+    }
+
+    private record DispatchResult(int claimed, int sent) {
+    }
+}
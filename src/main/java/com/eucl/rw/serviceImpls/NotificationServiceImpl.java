@@ -1,20 +1,33 @@
 package com.eucl.rw.serviceImpls;
 
+import com.eucl.rw.config.PaginationProperties;
+import com.eucl.rw.dto.NotificationDTO;
+import com.eucl.rw.dto.TokenReminderDTO;
 import com.eucl.rw.model.Notification;
-import com.eucl.rw.model.Token;
 import com.eucl.rw.model.User;
 import com.eucl.rw.repository.NotificationRepository;
 import com.eucl.rw.repository.TokenRepository;
 import com.eucl.rw.repository.UserRepository;
+import com.eucl.rw.response.CursorPage;
 import com.eucl.rw.service.NotificationService;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import com.eucl.rw.util.PageCursor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static com.eucl.rw.config.MailTemplateConfig.TOKEN_EXPIRY_DIGEST;
+
 @Service
 @Transactional
 public class NotificationServiceImpl implements NotificationService {
@@ -22,16 +35,22 @@ public class NotificationServiceImpl implements NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
-    private final JavaMailSender mailSender;
+    private final TemplateEngine mailTemplateEngine;
+    private final boolean digestReminders;
+    private final PaginationProperties pagination;
 
     public NotificationServiceImpl(NotificationRepository notificationRepository,
                                    UserRepository userRepository,
                                    TokenRepository tokenRepository,
-                                   JavaMailSender mailSender) {
+                                   @Qualifier("mailTemplateEngine") TemplateEngine mailTemplateEngine,
+                                   @Value("${app.notifications.reminder.digest:true}") boolean digestReminders,
+                                   PaginationProperties pagination) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.tokenRepository = tokenRepository;
-        this.mailSender = mailSender;
+        this.mailTemplateEngine = mailTemplateEngine;
+        this.digestReminders = digestReminders;
+        this.pagination = pagination;
     }
 
     @Override
@@ -39,60 +58,101 @@ public class NotificationServiceImpl implements NotificationService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        return notificationRepository.save(newNotification(user, meterNumber, message, LocalDateTime.now()));
+    }
+
+    private Notification newNotification(User user, String meterNumber, String message, LocalDateTime issuedDate) {
         Notification notification = new Notification();
         notification.setUser(user);
         notification.setMeterNumber(meterNumber);
         notification.setMessage(message);
-        notification.setIssuedDate(LocalDateTime.now());
+        notification.setIssuedDate(issuedDate);
         notification.setEmailed(false);
-
-        return notificationRepository.save(notification);
+        notification.setDispatchAttempts(0);
+        notification.setNextAttemptAt(issuedDate);
+        return notification;
     }
 
     @Override
-    public List<Notification> getUserNotifications(UUID userId) {
-        return notificationRepository.findByUser_Id((userId));
+    public CursorPage<NotificationDTO> getUserNotifications(UUID userId, String cursor, Integer limit) {
+        int pageSize = pagination.limit(limit);
+        PageCursor.TimeKey after = PageCursor.TimeKey.after(cursor);
+        return CursorPage.of(notificationRepository.findViewsPageByUserId(userId, after.at(), after.id(), Limit.of(pageSize + 1)),
+                pageSize, notification -> PageCursor.TimeKey.cursor(notification.getIssuedDate(), notification.getId()));
     }
 
     @Override
-    public List<Notification> getMeterNotifications(String meterNumber) {
-        return notificationRepository.findByMeterNumber(meterNumber);
+    public List<NotificationDTO> getMeterNotifications(String meterNumber) {
+        return notificationRepository.findViewsByMeterNumber(meterNumber);
     }
 
     @Override
     public void sendExpirationNotifications() {
         LocalDateTime threshold = LocalDateTime.now().plusHours(5);
-        List<Token> expiringTokens = tokenRepository.findTokensNearingExpiration(
-                threshold,
-                threshold.minusHours(1)
+        sendExpirationNotifications(threshold.minusHours(1), threshold, 1, 0);
+    }
+
+    @Override
+    public int sendExpirationNotifications(LocalDateTime windowStart, LocalDateTime windowEnd, int shardCount, int shard) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TokenReminderDTO> reminders = tokenRepository.findTokenReminders(
+                windowStart,
+                windowEnd,
+                shardCount,
+                shard
         );
 
-        for (Token token : expiringTokens) {
-            String message = String.format(
-                    "Dear %s, EUCL is pleased to remind you that the token in the %s is going to expire in 5 hours. Please purchase a new token.",
-                    token.getUser().getName(),
-                    token.getMeter().getMeterNumber()
-            );
+        List<Notification> notifications = digestReminders
+                ? digestNotifications(reminders, now)
+                : tokenNotifications(reminders, now);
 
-            Notification notification = createNotification(
-                    token.getUser().getId(),
-                    token.getMeter().getMeterNumber(),
-                    message
-            );
+        notificationRepository.saveAll(notifications);
+        return notifications.size();
+    }
 
-            sendEmailNotification(notification);
+    private List<Notification> digestNotifications(List<TokenReminderDTO> reminders, LocalDateTime now) {
+        Map<UUID, List<TokenReminderDTO>> byUser = new LinkedHashMap<>();
+        for (TokenReminderDTO reminder : reminders) {
+            byUser.computeIfAbsent(reminder.getUserId(), id -> new ArrayList<>()).add(reminder);
         }
+
+        List<Notification> notifications = new ArrayList<>(byUser.size());
+        for (List<TokenReminderDTO> userReminders : byUser.values()) {
+            TokenReminderDTO first = userReminders.get(0);
+            boolean singleMeter = userReminders.stream()
+                    .allMatch(r -> r.getMeterNumber().equals(first.getMeterNumber()));
+
+            Context context = new Context();
+            context.setVariable("name", first.getUserName());
+            context.setVariable("reminders", userReminders);
+
+            notifications.add(newNotification(
+                    userRepository.getReferenceById(first.getUserId()),
+                    singleMeter ? first.getMeterNumber() : null,
+                    mailTemplateEngine.process(TOKEN_EXPIRY_DIGEST, context),
+                    now
+            ));
+        }
+        return notifications;
     }
 
-    private void sendEmailNotification(Notification notification) {
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setTo(notification.getUser().getEmail());
-        mailMessage.setSubject("EUCL Token Expiration Notification");
-        mailMessage.setText(notification.getMessage());
+    private List<Notification> tokenNotifications(List<TokenReminderDTO> reminders, LocalDateTime now) {
+        List<Notification> notifications = new ArrayList<>(reminders.size());
+        for (TokenReminderDTO reminder : reminders) {
+            String message = String.format(
+                    "Dear %s, EUCL is pleased to remind you that the token in the %s is going to expire in 5 hours. Please purchase a new token.",
+                    reminder.getUserName(),
+                    reminder.getMeterNumber()
+            );
 
-        mailSender.send(mailMessage);
-        notification.setEmailed(true);
-        notificationRepository.save(notification);
+            notifications.add(newNotification(
+                    userRepository.getReferenceById(reminder.getUserId()),
+                    reminder.getMeterNumber(),
+                    message,
+                    now
+            ));
+        }
+        return notifications;
     }
 
     @Override
@@ -5,16 +5,24 @@ import com.eucl.rw.model.User;
 import com.eucl.rw.repository.RefreshTokenRepository;
 import com.eucl.rw.service.RefreshTokenService;
 
+import com.eucl.rw.util.Digests;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
 
 @Service
+@Transactional
 @RequiredArgsConstructor
 public class RefreshTokenServiceImpl implements RefreshTokenService {
 
@@ -22,52 +30,127 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
 
     private static final Logger logger = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     @Value("${app.jwt.refresh-token-expiration-ms:604800000}") // 7 days
     private int refreshTokenExpirationMs;
 
+    @Value("${app.refresh-tokens.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
     @Override
     public RefreshToken createRefreshToken(User user) {
+        String token = newRawToken();
         RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setFamilyId(UUID.randomUUID());
         refreshToken.setUserId(user.getId());
-        refreshToken.setToken(UUID.randomUUID().toString());
+        refreshToken.setTokenHash(Digests.sha256Hex(token));
         refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenExpirationMs));
         refreshTokenRepository.save(refreshToken);
+        refreshToken.setToken(token);
         logger.info("Created refresh token for user ID: {}", user.getId());
         return refreshToken;
     }
 
     @Override
+    @Transactional(noRollbackFor = SecurityException.class)
     public RefreshToken validateRefreshToken(String token) {
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(token)
-                .orElseThrow(() -> {
-                    logger.warn("Invalid refresh token: {}", token);
-                    return new SecurityException("Invalid refresh token");
-                });
+        String tokenHash = Digests.sha256Hex(token);
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(tokenHash)
+                .orElseThrow(() -> rejected(tokenHash));
         if (refreshToken.getExpiryDate().isBefore(Instant.now())) {
-            refreshTokenRepository.delete(refreshToken);
-            logger.warn("Expired refresh token: {}", token);
+            refreshTokenRepository.deleteByTokenHash(tokenHash);
+            logger.warn("Expired refresh token for user ID: {}", refreshToken.getUserId());
             throw new SecurityException("Refresh token expired");
         }
         return refreshToken;
     }
 
     @Override
-    public RefreshToken rotateRefreshToken(RefreshToken oldToken) {
-        refreshTokenRepository.delete(oldToken);
-        RefreshToken newToken = new RefreshToken();
-        newToken.setUserId(oldToken.getUserId());
-        newToken.setToken(UUID.randomUUID().toString());
-        newToken.setExpiryDate(Instant.now().plusMillis(refreshTokenExpirationMs));
-        refreshTokenRepository.save(newToken);
-        logger.info("Rotated refresh token for user ID: {}", oldToken.getUserId());
-        return newToken;
+    @Transactional(noRollbackFor = SecurityException.class)
+    public RefreshToken rotateRefreshToken(String token) {
+        String oldHash = Digests.sha256Hex(token);
+        String newToken = newRawToken();
+        Instant now = Instant.now();
+        Instant expiryDate = now.plusMillis(refreshTokenExpirationMs);
+
+        List<RefreshTokenRepository.RotatedToken> rotated =
+                refreshTokenRepository.rotate(oldHash, Digests.sha256Hex(newToken), now, expiryDate);
+        if (rotated.isEmpty()) {
+            refreshTokenRepository.findByTokenHash(oldHash).ifPresent(expired -> {
+                refreshTokenRepository.deleteByTokenHash(oldHash);
+                logger.warn("Expired refresh token for user ID: {}", expired.getUserId());
+                throw new SecurityException("Refresh token expired");
+            });
+            throw rejected(oldHash);
+        }
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setFamilyId(rotated.get(0).getFamilyId());
+        refreshToken.setUserId(rotated.get(0).getUserId());
+        refreshToken.setTokenHash(Digests.sha256Hex(newToken));
+        refreshToken.setExpiryDate(expiryDate);
+        refreshToken.setToken(newToken);
+        logger.info("Rotated refresh token for user ID: {}", refreshToken.getUserId());
+        return refreshToken;
     }
 
     @Override
     public void deleteRefreshToken(String token) {
-        refreshTokenRepository.findByToken(token).ifPresent(refreshToken -> {
-            refreshTokenRepository.delete(refreshToken);
-            logger.info("Deleted refresh token: {}", token);
-        });
+        if (refreshTokenRepository.deleteByTokenHash(Digests.sha256Hex(token)) > 0) {
+            logger.info("Deleted refresh token");
+        }
+    }
+
+    @Override
+    public int revokeUserSessions(UUID userId) {
+        int revoked = refreshTokenRepository.deleteByUserId(userId);
+        logger.info("Revoked {} refresh token families for user ID: {}", revoked, userId);
+        return revoked;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(fixedDelayString = "${app.refresh-tokens.purge-interval-ms:3600000}")
+    public int purgeExpiredTokens() {
+        Instant now = Instant.now();
+        int purged = 0;
+        int batch;
+        do {
+            batch = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            purged += batch;
+        } while (batch == purgeBatchSize);
+
+        // A superseded token would have expired within one lifetime of being replaced, so past that point a
+        // replay is refused like any stale token and its hash is no longer kept for reuse detection.
+        Instant supersededBefore = now.minusMillis(refreshTokenExpirationMs);
+        do {
+            batch = refreshTokenRepository.deleteSupersededBatch(supersededBefore, purgeBatchSize);
+        } while (batch == purgeBatchSize);
+        if (purged > 0) {
+            logger.info("Purged {} expired refresh tokens", purged);
+        }
+        return purged;
+    }
+
+    private SecurityException rejected(String tokenHash) {
+        return refreshTokenRepository.findFamilyBySupersededHash(tokenHash)
+                .map(family -> {
+                    // Bulk delete, so concurrent replays of the same token all end here instead of failing on
+                    // a row another one already removed.
+                    refreshTokenRepository.deleteByFamilyId(family.getFamilyId());
+                    logger.warn("Refresh token reuse detected, revoked token family of user ID: {}", family.getUserId());
+                    return new SecurityException("Refresh token reuse detected");
+                })
+                .orElseGet(() -> {
+                    logger.warn("Invalid refresh token");
+                    return new SecurityException("Invalid refresh token");
+                });
+    }
+
+    private static String newRawToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.repository.UserRepository;
+import com.eucl.rw.service.SecurityVersionService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Service
+public class SecurityVersionServiceImpl implements SecurityVersionService {
+
+    private static final int DELETED = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, Integer> versions;
+
+    public SecurityVersionServiceImpl(UserRepository userRepository,
+                                      @Value("${app.security.version-cache.maximum-size:100000}") long maximumSize,
+                                      @Value("${app.security.version-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    @Override
+    public boolean isCurrent(UUID userId, int version) {
+        Integer current = versions.get(userId, id -> userRepository.findSecurityVersionById(id).orElse(DELETED));
+        return current != DELETED && current == version;
+    }
+
+    @Override
+    public void evict(UUID userId) {
+        versions.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    versions.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.model.RevokedToken;
+import com.eucl.rw.repository.RevokedTokenRepository;
+import com.eucl.rw.service.TokenRevocationService;
+import com.eucl.rw.util.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationServiceImpl.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Cache<String, LocalDateTime> revoked;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final Duration syncLookback;
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    public TokenRevocationServiceImpl(RevokedTokenRepository revokedTokenRepository,
+                                      @Value("${app.revocation.bloom.expected-insertions:100000}") long expectedRevocations,
+                                      @Value("${app.revocation.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                                      @Value("${app.revocation.sync-lookback-ms:10000}") long syncLookbackMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.syncLookback = Duration.ofMillis(syncLookbackMs);
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        this.revoked = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, LocalDateTime>() {
+                    @Override
+                    public long expireAfterCreate(String key, LocalDateTime expiresAt, long currentTime) {
+                        return untilExpiration(expiresAt);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LocalDateTime expiresAt, long currentTime, long currentDuration) {
+                        return untilExpiration(expiresAt);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LocalDateTime expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private static long untilExpiration(LocalDateTime expiresAt) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), expiresAt).toNanos());
+    }
+
+    @PostConstruct
+    void load() {
+        LocalDateTime now = LocalDateTime.now();
+        lastSync = now;
+        List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(now);
+        active.forEach(this::remember);
+        logger.info("Loaded {} active token revocations", active.size());
+    }
+
+    @Override
+    @Transactional
+    public void revoke(String revocationKey, LocalDateTime expiresAt) {
+        if (!expiresAt.isAfter(LocalDateTime.now())) {
+            return;
+        }
+        revokedTokenRepository.insertIfAbsent(revocationKey, expiresAt, LocalDateTime.now());
+        remember(revocationKey, expiresAt);
+    }
+
+    @Override
+    public boolean isRevoked(String revocationKey) {
+        return filter.mightContain(revocationKey) && revoked.getIfPresent(revocationKey) != null;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.revocation.sync-interval-ms:2000}")
+    public int synchronize() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RevokedToken> recent = revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(
+                lastSync.minus(syncLookback), now);
+        lastSync = now;
+        recent.forEach(this::remember);
+        return recent.size();
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${app.revocation.purge-interval-ms:600000}")
+    public int purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        revoked.cleanUp();
+
+        BloomFilter rebuilt = new BloomFilter(expectedRevocations, falsePositiveRate);
+        Set<String> copied = new HashSet<>(revoked.asMap().keySet());
+        copied.forEach(rebuilt::put);
+        filter = rebuilt;
+        // remember() caches first and then reads filter, so a revocation that arrives after the copy can still have
+        // gone into the old filter only. Anything cached since the copy is put again, now that it sees the new one.
+        revoked.asMap().keySet().stream()
+                .filter(key -> !copied.contains(key))
+                .forEach(rebuilt::put);
+
+        if (purged > 0) {
+            logger.info("Purged {} expired token revocations", purged);
+        }
+        return purged;
+    }
+
+    private void remember(RevokedToken revokedToken) {
+        remember(revokedToken.getRevocationKey(), revokedToken.getExpiresAt());
+    }
+
+    private void remember(String revocationKey, LocalDateTime expiresAt) {
+        revoked.put(revocationKey, expiresAt);
+        filter.put(revocationKey);
+    }
+}
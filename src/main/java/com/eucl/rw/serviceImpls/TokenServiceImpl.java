@@ -1,33 +1,247 @@
 package com.eucl.rw.serviceImpls;
 
+import com.eucl.rw.config.PaginationProperties;
+import com.eucl.rw.dto.PurchaseLineDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.dto.TokenExpiryReportDTO;
 import com.eucl.rw.enums.ETokenStatus;
 import com.eucl.rw.model.Meter;
 import com.eucl.rw.model.Token;
 import com.eucl.rw.repository.MeterRepository;
 import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.response.CursorPage;
+import com.eucl.rw.response.PurchaseLineResponse;
 import com.eucl.rw.service.TokenService;
+import com.eucl.rw.service.TokenSupplyService;
+import com.eucl.rw.util.PageCursor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.postgresql.util.PSQLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class TokenServiceImpl implements TokenService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TokenServiceImpl.class);
+
+    private static final LocalDateTime EXPIRY_KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int PURCHASE_ATTEMPTS = 3;
+    // Named by Postgres for the UNIQUE on purchased_tokens.token in V1
+    private static final String TOKEN_CONSTRAINT = "purchased_tokens_token_key";
+
     private final TokenRepository tokenRepository;
     private final MeterRepository meterRepository;
-    private final Random random = new Random();
+    private final TokenSupplyService tokenSupplyService;
+    private final EntityManager entityManager;
+    private final PaginationProperties pagination;
+    // Writes are cached after commit on this node only; other nodes, and rows the expiry sweep changes in bulk,
+    // can serve a status up to the TTL old, so it stays at a few seconds
+    private final Cache<String, Optional<TokenDTO>> tokenViews;
+    private final TransactionTemplate chunkTransaction;
+    private final TransactionTemplate purchaseTransaction;
+    private final Counter expiredRows;
+    private final Counter expiryChunks;
+    private final Counter skippedRows;
+    private final Timer expiryChunkTimer;
+    private final ExecutorService expirySweeper =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("token-expiry").daemon().factory());
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int jdbcBatchSize;
+
+    @Value("${app.purchase.batch-max-lines:5000}")
+    private int batchMaxLines;
 
-    public TokenServiceImpl(TokenRepository tokenRepository, MeterRepository meterRepository) {
+    @Value("${app.token-expiry.chunk-size:1000}")
+    private int expiryChunkSize;
+
+    @Value("${app.token-expiry.pause-ms:50}")
+    private long expiryPauseMs;
+
+    public TokenServiceImpl(TokenRepository tokenRepository, MeterRepository meterRepository,
+                            TokenSupplyService tokenSupplyService, EntityManager entityManager,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            PaginationProperties pagination,
+                            @Value("${app.token-cache.maximum-size:100000}") long tokenCacheSize,
+                            @Value("${app.token-cache.ttl-ms:3000}") long tokenCacheTtlMs) {
         this.tokenRepository = tokenRepository;
         this.meterRepository = meterRepository;
+        this.tokenSupplyService = tokenSupplyService;
+        this.entityManager = entityManager;
+        this.pagination = pagination;
+        this.tokenViews = Caffeine.newBuilder()
+                .maximumSize(tokenCacheSize)
+                .expireAfterWrite(Duration.ofMillis(tokenCacheTtlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokenViews, "tokenViews");
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.purchaseTransaction = new TransactionTemplate(transactionManager);
+        this.purchaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.expiredRows = meterRegistry.counter("tokens.expiry.rows");
+        this.expiryChunks = meterRegistry.counter("tokens.expiry.chunks");
+        this.skippedRows = meterRegistry.counter("tokens.expiry.skipped");
+        this.expiryChunkTimer = meterRegistry.timer("tokens.expiry.chunk.transaction");
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TokenDTO generateToken(String meterNumber, double amount) {
+        int days = validateAmount(amount);
+        return withTokenRetry(() -> {
+            Meter meter = meterRepository.findByMeterNumber(meterNumber)
+                    .orElseThrow(() -> new RuntimeException("Meter not found"));
+
+            TokenDTO saved = TokenDTO.from(tokenRepository.save(newToken(meter, days, amount, LocalDateTime.now())));
+            cacheAfterCommit(List.of(saved));
+            return saved;
+        });
     }
 
     @Override
-    public Token generateToken(String meterNumber, double amount) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<PurchaseLineResponse> generateTokens(List<PurchaseLineDTO> lines) {
+        if (lines.size() > batchMaxLines) {
+            throw new RuntimeException("Cannot purchase more than " + batchMaxLines + " tokens in one batch");
+        }
+        return withTokenRetry(() -> purchaseLines(lines));
+    }
+
+    private List<PurchaseLineResponse> purchaseLines(List<PurchaseLineDTO> lines) {
+        Set<String> meterNumbers = lines.stream()
+                .map(PurchaseLineDTO::getMeterNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Meter> meters = meterRepository.findAllWithUserByMeterNumberIn(meterNumbers).stream()
+                .collect(Collectors.toMap(Meter::getMeterNumber, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PurchaseLineResponse> results = new ArrayList<>(lines.size());
+        List<TokenDTO> purchased = new ArrayList<>(lines.size());
+        List<Token> pending = new ArrayList<>(jdbcBatchSize);
+        List<Integer> pendingLines = new ArrayList<>(jdbcBatchSize);
+        for (int i = 0; i < lines.size(); i++) {
+            PurchaseLineDTO line = lines.get(i);
+            try {
+                if (line.getAmount() == null) {
+                    throw new RuntimeException("Amount is required");
+                }
+                int days = validateAmount(line.getAmount());
+                Meter meter = meters.get(line.getMeterNumber());
+                if (meter == null) {
+                    throw new RuntimeException("Meter not found");
+                }
+                Token token = newToken(meter, days, line.getAmount(), now);
+                pending.add(token);
+                pendingLines.add(i);
+                results.add(null);
+            } catch (RuntimeException e) {
+                results.add(PurchaseLineResponse.rejected(i, line, e.getMessage()));
+            }
+
+            if (pending.size() == jdbcBatchSize) {
+                flush(lines, pending, pendingLines, results, purchased);
+            }
+        }
+        flush(lines, pending, pendingLines, results, purchased);
+        cacheAfterCommit(purchased);
+        return results;
+    }
+
+    /**
+     * Runs a purchase in its own transaction. The token pool only knows the numbers this node has seen, so
+     * another node can issue the same one first; the unique constraint on token then rejects the insert and
+     * the purchase is repeated with fresh numbers.
+     */
+    private <T> T withTokenRetry(Supplier<T> purchase) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return purchaseTransaction.execute(status -> purchase.get());
+            } catch (RuntimeException e) {
+                if (attempt == PURCHASE_ATTEMPTS || !isTokenCollision(e)) {
+                    throw e;
+                }
+                logger.warn("Token number already issued elsewhere, retrying purchase (attempt {} of {})",
+                        attempt + 1, PURCHASE_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * Reads the violated constraint from the server's error fields rather than the message text, which follows
+     * the server's locale.
+     */
+    private static boolean isTokenCollision(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql) {
+                for (SQLException next = sql; next != null; next = next.getNextException()) {
+                    if (next instanceof PSQLException psql && psql.getServerErrorMessage() != null
+                            && TOKEN_CONSTRAINT.equals(psql.getServerErrorMessage().getConstraint())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void flush(List<PurchaseLineDTO> lines, List<Token> pending, List<Integer> pendingLines,
+                       List<PurchaseLineResponse> results, List<TokenDTO> purchased) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Token> saved = tokenRepository.saveAll(pending);
+        for (int i = 0; i < saved.size(); i++) {
+            int line = pendingLines.get(i);
+            TokenDTO view = TokenDTO.from(saved.get(i));
+            purchased.add(view);
+            results.set(line, PurchaseLineResponse.purchased(line, lines.get(line), view));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        pending.clear();
+        pendingLines.clear();
+    }
+
+    private int validateAmount(double amount) {
         if (amount < 100) {
             throw new RuntimeException("Minimum amount is 100 RWF");
         }
@@ -39,34 +253,38 @@ public class TokenServiceImpl implements TokenService {
         if (days > (365 * 5)) {
             throw new RuntimeException("Cannot purchase more than 5 years of electricity");
         }
+        return days;
+    }
 
-        Meter meter = meterRepository.findByMeterNumber(meterNumber)
-                .orElseThrow(() -> new RuntimeException("Meter not found"));
-
-        String token = generateRandomToken();
+    private Token newToken(Meter meter, int days, double amount, LocalDateTime purchasedDate) {
         Token newToken = new Token();
         newToken.setMeter(meter);
         newToken.setUser(meter.getUser());
-        newToken.setToken(token);
+        newToken.setToken(tokenSupplyService.nextToken());
         newToken.setTokenStatus(ETokenStatus.NEW);
         newToken.setTokenValueDays(days);
-        newToken.setPurchasedDate(LocalDateTime.now());
+        newToken.setPurchasedDate(purchasedDate);
+        newToken.setExpiresAt(purchasedDate.plusDays(days));
         newToken.setAmount(amount);
+        return newToken;
+    }
 
-        return tokenRepository.save(newToken);
+    private void cacheAfterCommit(List<TokenDTO> views) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                views.forEach(view -> tokenViews.put(view.getToken(), Optional.of(view)));
+            }
+        });
     }
 
-    private String generateRandomToken() {
-        StringBuilder token = new StringBuilder(16);
-        for (int i = 0; i < 16; i++) {
-            token.append(random.nextInt(10));
-        }
-        return token.toString();
+    private Optional<TokenDTO> findTokenView(String token) {
+        return tokenViews.get(token, tokenRepository::findViewByToken);
     }
 
     @Override
-    public Token validateToken(String token) {
-        Token foundToken = tokenRepository.findByToken(token)
+    public TokenDTO validateToken(String token) {
+        TokenDTO foundToken = tokenRepository.findViewByToken(token)
                 .orElseThrow(() -> new RuntimeException("Token not found"));
 
         if (foundToken.getTokenStatus() != ETokenStatus.NEW) {
@@ -77,18 +295,49 @@ public class TokenServiceImpl implements TokenService {
     }
 
     @Override
-    public List<Token> getTokensByMeter(String meterNumber) {
-        return tokenRepository.findByMeter_MeterNumber(meterNumber);
+    public TokenDTO redeemToken(String token, String meterNumber) {
+        LocalDateTime now = LocalDateTime.now();
+        if (tokenRepository.redeemToken(token, meterNumber, now) == 0) {
+            TokenDTO view = tokenRepository.findViewByToken(token)
+                    .orElseThrow(() -> new RuntimeException("Token not found"));
+            if (!view.getMeterNumber().equals(meterNumber)) {
+                throw new RuntimeException("Token does not belong to meter");
+            }
+            // Expired tokens stay NEW until the next expiry sweep.
+            ETokenStatus status = view.getTokenStatus() == ETokenStatus.NEW ? ETokenStatus.EXPIRED : view.getTokenStatus();
+            throw new RuntimeException("Token is " + status.name().toLowerCase());
+        }
+
+        TokenDTO redeemed = tokenRepository.findViewByToken(token)
+                .orElseThrow(() -> new RuntimeException("Token not found"));
+        cacheAfterCommit(List.of(redeemed));
+        return redeemed;
+    }
+
+    @Override
+    public List<TokenDTO> getTokensByMeter(String meterNumber) {
+        return tokenRepository.findViewsByMeterNumber(meterNumber);
     }
 
     @Override
-    public List<Token> getUserTokens(UUID userId) {
-        return tokenRepository.findByUser_Id(userId);
+    public CursorPage<TokenDTO> getUserTokens(UUID userId, String cursor, Integer limit) {
+        int pageSize = pagination.limit(limit);
+        PageCursor.TimeKey after = PageCursor.TimeKey.after(cursor);
+        return tokenPage(tokenRepository.findViewsPageByUserId(userId, after.at(), after.id(), Limit.of(pageSize + 1)), pageSize);
     }
 
     @Override
-    public List<Token> getTokensByStatus(ETokenStatus status) {
-        return tokenRepository.findByTokenStatus(status);
+    public CursorPage<TokenDTO> getTokens(ETokenStatus status, String cursor, Integer limit) {
+        int pageSize = pagination.limit(limit);
+        PageCursor.TimeKey after = PageCursor.TimeKey.after(cursor);
+        Limit rows = Limit.of(pageSize + 1);
+        return tokenPage(status == null
+                ? tokenRepository.findViewsPage(after.at(), after.id(), rows)
+                : tokenRepository.findViewsPageByTokenStatus(status, after.at(), after.id(), rows), pageSize);
+    }
+
+    private CursorPage<TokenDTO> tokenPage(List<TokenDTO> rows, int pageSize) {
+        return CursorPage.of(rows, pageSize, token -> PageCursor.TimeKey.cursor(token.getPurchasedDate(), token.getId()));
     }
 
     @Override
@@ -99,19 +348,120 @@ public class TokenServiceImpl implements TokenService {
     @Override
     public List<Token> checkExpiringTokens(LocalDateTime expirationThreshold) {
         return tokenRepository.findTokensNearingExpiration(
-                expirationThreshold,
-                expirationThreshold.minusHours(5));
+                expirationThreshold.minusHours(5),
+                expirationThreshold);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        expirySweeper.shutdownNow();
+    }
+
+    /**
+     * Hands the sweep to its own thread: it pauses between chunks and would otherwise hold one of the shared
+     * scheduler threads for its whole run. A tick that finds a sweep still running is skipped.
+     */
+    @Scheduled(fixedDelayString = "${app.token-expiry.interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expireDueTokens() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        expirySweeper.execute(() -> {
+            try {
+                expireTokens(LocalDateTime.now());
+            } catch (RuntimeException e) {
+                logger.error("Token expiry sweep failed: {}", e.getMessage());
+            } finally {
+                sweeping.set(false);
+            }
+        });
     }
 
     @Override
-    public void expireTokens(LocalDateTime expirationDate) {
-        tokenRepository.expireOldTokens(expirationDate);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TokenExpiryReportDTO expireTokens(LocalDateTime expirationDate) {
+        long started = System.nanoTime();
+        long chunkNanos = 0;
+        long rows = 0;
+        int chunks = 0;
+        LocalDateTime fromExpiresAt = EXPIRY_KEYSET_START;
+
+        while (true) {
+            long chunkStarted = System.nanoTime();
+            LocalDateTime keyset = fromExpiresAt;
+            List<TokenRepository.ExpiredToken> expired = chunkTransaction.execute(status ->
+                    tokenRepository.expireTokenChunk(expirationDate, keyset, expiryChunkSize));
+            long elapsed = System.nanoTime() - chunkStarted;
+            if (expired == null || expired.isEmpty()) {
+                break;
+            }
+
+            chunks++;
+            chunkNanos += elapsed;
+            rows += expired.size();
+            expiryChunks.increment();
+            expiredRows.increment(expired.size());
+            expiryChunkTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+            for (TokenRepository.ExpiredToken token : expired) {
+                tokenViews.asMap().computeIfPresent(token.getToken(),
+                        (key, cached) -> cached.map(view -> withStatus(view, ETokenStatus.EXPIRED)));
+                if (token.getExpiresAt().isAfter(fromExpiresAt)) {
+                    fromExpiresAt = token.getExpiresAt();
+                }
+            }
+
+            if (expired.size() < expiryChunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(expiryPauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // What is still due was held by other transactions when its chunk ran; the next run picks it up.
+        long skipped = tokenRepository.countDueTokens(expirationDate);
+        skippedRows.increment(skipped);
+
+        TokenExpiryReportDTO report = new TokenExpiryReportDTO(rows, skipped, chunks,
+                TimeUnit.NANOSECONDS.toMillis(chunkNanos),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        if (rows > 0 || skipped > 0) {
+            logger.info("Expired {} tokens in {} chunks, skipped {} locked by other transactions " +
+                            "({} ms in chunk transactions, {} ms total)",
+                    report.getRowsExpired(), report.getChunks(), report.getRowsSkipped(),
+                    report.getChunkTransactionMillis(), report.getTotalMillis());
+        }
+        return report;
+    }
+
+    private static TokenDTO withStatus(TokenDTO view, ETokenStatus status) {
+        return new TokenDTO(view.getId(), view.getMeterNumber(), view.getToken(), status,
+                view.getTokenValueDays(), view.getPurchasedDate(), view.getExpiresAt(), view.getAmount());
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public TokenDTO getTokenInfo(String token) {
+        TokenDTO view = findTokenView(token)
+                .orElseThrow(() -> new RuntimeException("Token not found"));
+
+        if (view.getTokenStatus() != ETokenStatus.NEW) {
+            throw new RuntimeException("Token is " + view.getTokenStatus().name().toLowerCase());
+        }
+
+        return view;
     }
 
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public ETokenStatus checkTokenStatus(String token) {
-        return tokenRepository.findByToken(token)
-                .map(Token::getTokenStatus)
+        return findTokenView(token)
+                .map(TokenDTO::getTokenStatus)
                 .orElseThrow(() -> new RuntimeException("Token not found"));
     }
 
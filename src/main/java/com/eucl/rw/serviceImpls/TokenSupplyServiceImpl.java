@@ -0,0 +1,89 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.service.TokenSupplyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class TokenSupplyServiceImpl implements TokenSupplyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenSupplyServiceImpl.class);
+
+    private static final long TOKEN_SPACE = 10_000_000_000_000_000L; // 16 digits
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final TokenRepository tokenRepository;
+    private final ConcurrentLinkedQueue<String> pool = new ConcurrentLinkedQueue<>();
+    private final Set<String> reserved = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Value("${app.token-pool.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.token-pool.refill-batch-size:1000}")
+    private int refillBatchSize;
+
+    public TokenSupplyServiceImpl(TokenRepository tokenRepository) {
+        this.tokenRepository = tokenRepository;
+    }
+
+    @Override
+    public String nextToken() {
+        String token;
+        while ((token = pool.poll()) == null) {
+            // A large batch can outrun the scheduled refill; top up inline with one lookup per batch of numbers.
+            logger.warn("Token pool exhausted, topping it up inline");
+            topUp(refillBatchSize);
+        }
+        size.decrementAndGet();
+        reserved.remove(token);
+        return token;
+    }
+
+    @Override
+    public int available() {
+        return size.get();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.token-pool.refill-interval-ms:500}")
+    public void refill() {
+        int missing;
+        while ((missing = capacity - size.get()) > 0) {
+            topUp(Math.min(missing, refillBatchSize));
+        }
+    }
+
+    private void topUp(int wanted) {
+        Set<String> candidates = new HashSet<>(wanted * 2);
+        while (candidates.size() < wanted) {
+            String candidate = randomToken();
+            if (!reserved.contains(candidate)) {
+                candidates.add(candidate);
+            }
+        }
+        tokenRepository.findExistingTokens(candidates).forEach(candidates::remove);
+
+        for (String candidate : candidates) {
+            if (reserved.add(candidate)) {
+                pool.offer(candidate);
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    private static String randomToken() {
+        return String.format("%016d", RANDOM.get().nextLong(TOKEN_SPACE));
+    }
+}
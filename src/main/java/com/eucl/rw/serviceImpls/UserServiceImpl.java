@@ -1,30 +1,59 @@
 package com.eucl.rw.serviceImpls;
 
+import com.eucl.rw.config.PaginationProperties;
+import com.eucl.rw.dto.MeterDTO;
+import com.eucl.rw.dto.UserDTO;
 import com.eucl.rw.enums.ERole;
-import com.eucl.rw.model.Meter;
 import com.eucl.rw.model.User;
 import com.eucl.rw.repository.MeterRepository;
 import com.eucl.rw.repository.UserRepository;
+import com.eucl.rw.response.CursorPage;
+import com.eucl.rw.service.MeterService;
+import com.eucl.rw.service.PasswordHashingService;
+import com.eucl.rw.service.RefreshTokenService;
+import com.eucl.rw.service.SecurityVersionService;
 import com.eucl.rw.service.UserService;
+import com.eucl.rw.util.PageCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @Transactional
 public class UserServiceImpl implements UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+
     private final UserRepository userRepository;
     private final MeterRepository meterRepository;
     private final PasswordEncoder passwordEncoder;
+    private final MeterService meterService;
+    private final SecurityVersionService securityVersionService;
+    private final PasswordHashingService passwordHashingService;
+    private final RefreshTokenService refreshTokenService;
+    private final PaginationProperties pagination;
 
     public UserServiceImpl(UserRepository userRepository, MeterRepository meterRepository,
-                           PasswordEncoder passwordEncoder) {
+                           PasswordEncoder passwordEncoder, MeterService meterService,
+                           SecurityVersionService securityVersionService,
+                           PasswordHashingService passwordHashingService,
+                           RefreshTokenService refreshTokenService,
+                           PaginationProperties pagination) {
         this.userRepository = userRepository;
         this.meterRepository = meterRepository;
         this.passwordEncoder = passwordEncoder;
+        this.meterService = meterService;
+        this.securityVersionService = securityVersionService;
+        this.passwordHashingService = passwordHashingService;
+        this.refreshTokenService = refreshTokenService;
+        this.pagination = pagination;
     }
 
     @Override
@@ -41,24 +70,54 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setRoles(roles);
+        user.setSecurityVersion(0);
         return userRepository.save(user);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User authenticateUser(String email, String password) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!passwordEncoder.matches(password, user.getPassword())) {
+        if (!passwordHashingService.matches(password, user.getPassword())) {
             throw new RuntimeException("Invalid credentials");
         }
 
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            upgradePasswordHash(user, password);
+        }
+
         return user;
     }
 
+    /**
+     * The password is already verified, so a hashing pool too busy for the upgrade must not fail the login; the
+     * old hash stays and a later login upgrades it.
+     */
+    private void upgradePasswordHash(User user, String password) {
+        String rehashed;
+        try {
+            rehashed = passwordHashingService.encode(password);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Password hashing pool busy, deferring rehash for user ID: {}", user.getId());
+            return;
+        }
+        if (userRepository.updatePassword(user.getId(), user.getPassword(), rehashed) == 1) {
+            user.setPassword(rehashed);
+        }
+    }
+
     @Override
     public User getUserById(UUID id) {
-        return userRepository.findById(id)
+        return userRepository.findWithRolesById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    @Override
+    public UserDTO getUserView(UUID id) {
+        return toViews(userRepository.findRowsById(id)).stream()
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
@@ -69,8 +128,27 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<UserDTO> getUsers(String cursor, Integer limit) {
+        int pageSize = pagination.limit(limit);
+        String afterEmail = cursor == null || cursor.isBlank() ? "" : PageCursor.decode(cursor, 1, keys -> keys[0]);
+        List<UUID> ids = userRepository.findIdsPage(afterEmail, Limit.of(pageSize + 1));
+        if (ids.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        return CursorPage.of(toViews(userRepository.findRowsByIdIn(ids)), pageSize,
+                user -> PageCursor.encode(user.getEmail()));
+    }
+
+    private List<UserDTO> toViews(List<UserRepository.UserRow> rows) {
+        Map<UUID, UserDTO> views = new LinkedHashMap<>();
+        for (UserRepository.UserRow row : rows) {
+            UserDTO view = views.computeIfAbsent(row.getId(), id -> new UserDTO(id, row.getName(), row.getEmail(),
+                    row.getPhone(), row.getNationalId(), EnumSet.noneOf(ERole.class)));
+            if (row.getRole() != null) {
+                view.getRoles().add(row.getRole());
+            }
+        }
+        return new ArrayList<>(views.values());
     }
 
     @Override
@@ -85,6 +163,21 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(UUID userId) {
         User user = getUserById(userId);
         userRepository.delete(user);
+        refreshTokenService.revokeUserSessions(userId);
+        securityVersionService.evict(userId);
+    }
+
+    @Override
+    public User updateUserRoles(UUID userId, Set<ERole> roles) {
+        if (roles == null || roles.isEmpty()) {
+            throw new RuntimeException("At least one role is required");
+        }
+        User user = getUserById(userId);
+        user.setRoles(new HashSet<>(roles));
+        user.setSecurityVersion(user.getSecurityVersion() == null ? 1 : user.getSecurityVersion() + 1);
+        User saved = userRepository.save(user);
+        securityVersionService.evict(userId);
+        return saved;
     }
 
     @Override
@@ -94,14 +187,12 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void assignMeterToUser(UUID userId, String meterNumber) {
-        User user = getUserById(userId);
-        Meter meter = new Meter(meterNumber, user, null);
-        meterRepository.save(meter);
+        meterService.assignMeter(meterNumber, getUserById(userId));
     }
 
     @Override
-    public List<Meter> getUserMeters(UUID userId) {
-        return meterRepository.findByUser_Id(userId);
+    public List<MeterDTO> getUserMeters(UUID userId) {
+        return meterRepository.findViewsByUserId(userId);
     }
 
     @Override
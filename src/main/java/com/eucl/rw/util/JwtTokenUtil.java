@@ -1,55 +1,84 @@
 package com.eucl.rw.util;
 
 import com.eucl.rw.model.User;
+import com.eucl.rw.service.TokenRevocationService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import lombok.NoArgsConstructor;
+import io.jsonwebtoken.security.SecurityException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.cache.Cache;
-import javax.cache.CacheManager;
-import javax.cache.Caching;
-import javax.cache.configuration.MutableConfiguration;
-import javax.cache.expiry.Duration;
-import javax.cache.expiry.ModifiedExpiryPolicy;
 import javax.crypto.SecretKey;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@NoArgsConstructor
 public class JwtTokenUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenUtil.class);
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    public static final String CLAIM_USER_ID = "userId";
 
-    @Value("${app.jwt.access-token-expiration-ms:900000}") // 15 minutes
-    private int accessTokenExpirationMs;
+    public static final String CLAIM_ROLES = "roles";
 
-    private Cache<String, Boolean> tokenBlacklist;
+    public static final String CLAIM_SECURITY_VERSION = "ver";
 
-    public JwtTokenUtil(@Value("${app.jwt.secret}") String jwtSecret) {
-        this.jwtSecret = jwtSecret;
-        this.tokenBlacklist = initializeBlacklistCache();
-    }
+    private final int accessTokenExpirationMs;
+
+    private final SecretKey signingKey;
+
+    private final JwtParser jwtParser;
+
+    private final Cache<String, Claims> verifiedClaims;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public JwtTokenUtil(@Value("${app.jwt.secret}") String jwtSecret,
+                        @Value("${app.jwt.access-token-expiration-ms:900000}") int accessTokenExpirationMs,
+                        @Value("${app.jwt.claims-cache.maximum-size:10000}") long claimsCacheSize,
+                        TokenRevocationService tokenRevocationService) {
+        this.accessTokenExpirationMs = accessTokenExpirationMs;
+        this.tokenRevocationService = tokenRevocationService;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return untilExpiration(claims);
+                    }
 
-    private Cache<String, Boolean> initializeBlacklistCache() {
-        CacheManager cacheManager = Caching.getCachingProvider().getCacheManager();
-        MutableConfiguration<String, Boolean> config = new MutableConfiguration<String, Boolean>()
-                .setTypes(String.class, Boolean.class)
-                .setExpiryPolicyFactory(ModifiedExpiryPolicy.factoryOf(Duration.ONE_DAY))
-                .setStoreByValue(false);
-        return cacheManager.createCache("tokenBlacklist", config);
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return untilExpiration(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    private static long untilExpiration(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expiration.getTime() - System.currentTimeMillis()));
     }
 
     public String generateAccessToken(User user) {
@@ -57,44 +86,38 @@ public class JwtTokenUtil {
         Date expiry = new Date(now.getTime() + accessTokenExpirationMs);
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(user.getEmail())
-                .claim("userId", user.getId().toString())
+                .claim(CLAIM_USER_ID, user.getId().toString())
+                .claim(CLAIM_ROLES, user.getRoles().stream().map(Enum::name).sorted().toList())
+                .claim(CLAIM_SECURITY_VERSION, user.getSecurityVersion() == null ? 0 : user.getSecurityVersion())
                 .setIssuedAt(now)
                 .setExpiration(expiry)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
 
     public UUID getUserIdFromJwtToken(String token) {
-        String userId = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("userId", String.class);
-        return UUID.fromString(userId);
+        return UUID.fromString(parseClaims(token).get(CLAIM_USER_ID, String.class));
     }
 
     public boolean validateJwtToken(String authToken) {
+        return getVerifiedClaims(authToken) != null;
+    }
+
+    public Claims getVerifiedClaims(String authToken) {
         try {
-            if (isTokenBlacklisted(authToken)) {
+            String digest = Digests.sha256Hex(authToken);
+            Claims claims = verifiedClaims.get(digest, key -> jwtParser.parseClaimsJws(authToken).getBody());
+            if (tokenRevocationService.isRevoked(revocationKey(claims, digest))) {
                 logger.warn("Attempt to use blacklisted token");
-                return false;
+                return null;
             }
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            return claims;
         } catch (SecurityException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -106,17 +129,46 @@ public class JwtTokenUtil {
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private Claims parseClaims(String token) {
+        Claims claims = verifiedClaims.getIfPresent(Digests.sha256Hex(token));
+        return claims != null ? claims : jwtParser.parseClaimsJws(token).getBody();
+    }
+
+    private static String revocationKey(Claims claims, String digest) {
+        return claims != null && claims.getId() != null ? claims.getId() : digest.substring(0, 32);
+    }
+
+    private Claims parseClaimsQuietly(String token, String digest) {
+        Claims claims = verifiedClaims.getIfPresent(digest);
+        if (claims != null) {
+            return claims;
+        }
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
+            return e.getClaims();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return tokenBlacklist != null && tokenBlacklist.containsKey(token);
+        String digest = Digests.sha256Hex(token);
+        return tokenRevocationService.isRevoked(revocationKey(parseClaimsQuietly(token, digest), digest));
     }
 
     public void blacklistToken(String token, long expirationMs) {
-        if (tokenBlacklist != null) {
-            tokenBlacklist.put(token, true);
-            logger.info("Token blacklisted: {}", token);
-        }
+        String digest = Digests.sha256Hex(token);
+        Claims claims = parseClaimsQuietly(token, digest);
+        LocalDateTime expiresAt = claims != null && claims.getExpiration() != null
+                ? LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault())
+                : LocalDateTime.now().plusNanos(expirationMs * 1_000_000);
+        String revocationKey = revocationKey(claims, digest);
+        tokenRevocationService.revoke(revocationKey, expiresAt);
+        verifiedClaims.invalidate(digest);
+        logger.info("Token blacklisted: {}", revocationKey);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.eucl.rw.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class PageCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private PageCursor() {
+    }
+
+    public static String encode(Object... keys) {
+        String joined = Arrays.stream(keys).map(String::valueOf).collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> T decode(String cursor, int keys, Function<String[], T> parser) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (parts.length != keys) {
+                throw new IllegalArgumentException("Expected " + keys + " keys");
+            }
+            return parser.apply(parts);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    public record TimeKey(LocalDateTime at, UUID id) {
+        public static final TimeKey FIRST = new TimeKey(LocalDateTime.of(9999, 12, 31, 0, 0), new UUID(-1L, -1L));
+
+        public static TimeKey after(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return FIRST;
+            }
+            return decode(cursor, 2, keys -> new TimeKey(LocalDateTime.parse(keys[0]), UUID.fromString(keys[1])));
+        }
+
+        public static String cursor(LocalDateTime at, UUID id) {
+            return encode(at, id);
+        }
+    }
+}
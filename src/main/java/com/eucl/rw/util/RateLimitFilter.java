@@ -0,0 +1,115 @@
+package com.eucl.rw.util;
+
+import com.eucl.rw.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final List<Route> routes;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final Cache<String, Bucket> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties) {
+        this.apiKeyHeader = properties.getApiKeyHeader();
+        this.apiKeys = Set.copyOf(properties.getApiKeys());
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new Route(PathPatternParser.defaultInstance.parse(route.getPattern()),
+                        route.getPattern(), route.getCapacity(), route.getRefillPerSecond()))
+                .toList();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumClients())
+                .expireAfterAccess(properties.getIdleEviction())
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @org.springframework.lang.NonNull HttpServletRequest request,
+            @org.springframework.lang.NonNull HttpServletResponse response,
+            @org.springframework.lang.NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+        Route route = match(request);
+        if (route != null) {
+            String apiKey = request.getHeader(apiKeyHeader);
+            // An unknown key must not buy a fresh bucket, or random keys would sidestep the limit and crowd
+            // real clients out of the cache.
+            String client = apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+            Bucket bucket = buckets.get(route.pattern + "|" + client, key -> new Bucket(route));
+            long waitNanos = bucket.tryAcquire(System.nanoTime());
+            if (waitNanos > 0) {
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Route match(HttpServletRequest request) {
+        if (routes.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (Route route : routes) {
+            if (route.matcher.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private record Route(PathPattern matcher, String pattern, long intervalNanos, long burstNanos) {
+        Route(PathPattern matcher, String pattern, int capacity, double refillPerSecond) {
+            this(matcher, pattern, intervalNanos(refillPerSecond), intervalNanos(refillPerSecond) * Math.max(1, capacity));
+        }
+
+        private static long intervalNanos(double refillPerSecond) {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(refillPerSecond, 1e-9));
+        }
+    }
+
+    private static final class Bucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        private Bucket(Route route) {
+            this.intervalNanos = route.intervalNanos();
+            this.burstNanos = route.burstNanos();
+        }
+
+        private long tryAcquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long next = start + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
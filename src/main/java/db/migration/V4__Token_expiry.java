@@ -0,0 +1,80 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Adds purchased_tokens.expires_at and backfills it from purchased_date + token_value_days.
+ * Runs outside a transaction so each batch commits on its own and no lock is held on the whole table.
+ */
+public class V4__Token_expiry extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V4__Token_expiry.class);
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE purchased_tokens ADD COLUMN IF NOT EXISTS expires_at timestamp(6)");
+        }
+
+        // Walks the table in primary key order so each batch starts where the last one ended instead of
+        // rescanning the rows already backfilled.
+        long total = 0;
+        try (PreparedStatement first = connection.prepareStatement(backfillSql(""));
+             PreparedStatement next = connection.prepareStatement(backfillSql("WHERE id > ?"))) {
+            first.setInt(1, BATCH_SIZE);
+            PreparedStatement batch = first;
+            while (true) {
+                UUID lastId;
+                try (ResultSet result = batch.executeQuery()) {
+                    result.next();
+                    lastId = result.getObject(1, UUID.class);
+                    total += result.getLong(2);
+                }
+                if (lastId == null) {
+                    break;
+                }
+                logger.info("Backfilled expires_at on {} tokens so far", total);
+                next.setObject(1, lastId);
+                next.setInt(2, BATCH_SIZE);
+                batch = next;
+            }
+        }
+        logger.info("Backfilled expires_at on {} tokens", total);
+
+        // Expiry sweep and reminders.
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchased_tokens_status_expires_at " +
+                    "ON purchased_tokens (token_status, expires_at)");
+        }
+    }
+
+    /**
+     * Backfills the next batch of ids and returns the batch's last id (null once the table is exhausted) and the
+     * number of rows updated.
+     */
+    private static String backfillSql(String lowerBound) {
+        return "WITH batch AS (SELECT id FROM purchased_tokens " + lowerBound + " ORDER BY id LIMIT ?), " +
+                "updated AS (UPDATE purchased_tokens t " +
+                "SET expires_at = t.purchased_date + make_interval(days => t.token_value_days) FROM batch " +
+                "WHERE t.id = batch.id AND t.expires_at IS NULL " +
+                "AND t.purchased_date IS NOT NULL AND t.token_value_days IS NOT NULL RETURNING 1) " +
+                "SELECT (SELECT id FROM batch ORDER BY id DESC LIMIT 1), (SELECT count(*) FROM updated)";
+    }
+}
@@ -0,0 +1,5 @@
+-- Notifications written before the outbox columns existed have no next_attempt_at, so the
+-- dispatcher's "next_attempt_at <= now" claim never picks them up. Make unsent ones due now.
+-- Rows the dispatcher gave up on also have a NULL next_attempt_at, but always after at least one attempt.
+UPDATE notifications SET next_attempt_at = COALESCE(issued_date, now())
+WHERE emailed = false AND next_attempt_at IS NULL AND COALESCE(dispatch_attempts, 0) = 0;
@@ -0,0 +1,19 @@
+-- Listings page newest first with (date, id) < (:date, :id), which is NULL rather than true for a row with no
+-- date, so legacy rows written without one were on no page at all. Their real date is lost; the epoch sorts
+-- them after everything else.
+UPDATE purchased_tokens SET purchased_date = TIMESTAMP '1970-01-01 00:00:00' WHERE purchased_date IS NULL;
+UPDATE notifications SET issued_date = TIMESTAMP '1970-01-01 00:00:00' WHERE issued_date IS NULL;
+
+-- SET NOT NULL alone scans the table under an exclusive lock. A validated CHECK lets it skip the scan, and
+-- validating only takes a lock that leaves reads and writes running; see the .conf file.
+ALTER TABLE purchased_tokens ADD CONSTRAINT purchased_tokens_purchased_date_not_null
+    CHECK (purchased_date IS NOT NULL) NOT VALID;
+ALTER TABLE purchased_tokens VALIDATE CONSTRAINT purchased_tokens_purchased_date_not_null;
+ALTER TABLE purchased_tokens ALTER COLUMN purchased_date SET NOT NULL;
+ALTER TABLE purchased_tokens DROP CONSTRAINT purchased_tokens_purchased_date_not_null;
+
+ALTER TABLE notifications ADD CONSTRAINT notifications_issued_date_not_null
+    CHECK (issued_date IS NOT NULL) NOT VALID;
+ALTER TABLE notifications VALIDATE CONSTRAINT notifications_issued_date_not_null;
+ALTER TABLE notifications ALTER COLUMN issued_date SET NOT NULL;
+ALTER TABLE notifications DROP CONSTRAINT notifications_issued_date_not_null;
@@ -0,0 +1,20 @@
+-- Every hash a family has rotated away from, not just the last one, so a replay of any earlier refresh token
+-- is caught as reuse. Rows go with their family and are purged once the token they held would have expired.
+CREATE TABLE IF NOT EXISTS refresh_token_history (
+    token_hash    varchar(64)                 NOT NULL,
+    family_id     uuid                        NOT NULL REFERENCES refresh_tokens (family_id) ON DELETE CASCADE,
+    superseded_at timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (token_hash)
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_token_history_family_id ON refresh_token_history (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_history_superseded_at ON refresh_token_history (superseded_at);
+
+INSERT INTO refresh_token_history (token_hash, family_id, superseded_at)
+SELECT previous_hash, family_id, now()
+FROM refresh_tokens
+WHERE previous_hash IS NOT NULL
+ON CONFLICT (token_hash) DO NOTHING;
+
+DROP INDEX IF EXISTS idx_refresh_tokens_previous_hash;
+ALTER TABLE refresh_tokens DROP COLUMN IF EXISTS previous_hash;
@@ -0,0 +1,62 @@
+-- Schema the application shipped with, as generated by Hibernate (ddl-auto=update).
+-- Databases created that way are baselined at this version and skip it; every
+-- later change is a migration of its own and tolerates being partly applied
+-- already, since ddl-auto kept adding columns and tables until V2.
+
+CREATE TABLE users (
+    id          uuid         NOT NULL,
+    name        varchar(255) NOT NULL,
+    email       varchar(255) NOT NULL UNIQUE,
+    phone       varchar(255) NOT NULL UNIQUE,
+    national_id varchar(255) NOT NULL UNIQUE,
+    password    varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE user_roles (
+    user_id uuid NOT NULL,
+    role    varchar(255) CHECK (role IN ('ROLE_ADMIN', 'ROLE_CUSTOMER'))
+);
+
+CREATE TABLE meters (
+    meter_number varchar(6) NOT NULL,
+    user_id      uuid       NOT NULL,
+    PRIMARY KEY (meter_number)
+);
+
+CREATE TABLE purchased_tokens (
+    id               uuid NOT NULL,
+    token            varchar(16) UNIQUE,
+    meter_number     varchar(6),
+    user_id          uuid,
+    amount           float(53),
+    token_value_days integer,
+    token_status     varchar(255) CHECK (token_status IN ('NEW', 'USED', 'EXPIRED')),
+    purchased_date   timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE notifications (
+    id           uuid    NOT NULL,
+    user_id      uuid    NOT NULL,
+    meter_number varchar(6),
+    message      varchar(255),
+    issued_date  timestamp(6),
+    emailed      boolean NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE refresh_token (
+    token       varchar(255) NOT NULL,
+    user_id     uuid,
+    expiry_date timestamp(6) with time zone,
+    PRIMARY KEY (token)
+);
+
+-- Constraint names match the ones Hibernate generated so baselined and fresh
+-- databases stay interchangeable for later migrations.
+ALTER TABLE user_roles ADD CONSTRAINT FKhfh9dx7w3ubf1co1vdev94g3f FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE meters ADD CONSTRAINT FKk8o0x8ij2anyv062e3bmwbcfj FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE purchased_tokens ADD CONSTRAINT FKfervtei3b6x4y0shj8e52p6hd FOREIGN KEY (meter_number) REFERENCES meters;
+ALTER TABLE purchased_tokens ADD CONSTRAINT FKet55gpvnuhluuad4d888oggin FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE notifications ADD CONSTRAINT FK9y21adhxn0ayjhfocscqox7bh FOREIGN KEY (user_id) REFERENCES users;
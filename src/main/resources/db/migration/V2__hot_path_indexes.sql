@@ -0,0 +1,38 @@
+-- Built CONCURRENTLY so live tables keep taking writes; see the .conf file.
+-- Names match the indexes ddl-auto may already have created, which are skipped.
+
+-- A user's tokens, newest first.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchased_tokens_user_purchased_date
+    ON purchased_tokens (user_id, purchased_date, id);
+
+-- Token lookups by meter (history, active tokens, redemption) and the FK from meters.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchased_tokens_meter_status
+    ON purchased_tokens (meter_number, token_status);
+
+-- Token listings, reports and exports by purchase date.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchased_tokens_purchased_date
+    ON purchased_tokens (purchased_date, id);
+
+-- A user's notifications, newest first.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_user_issued_date
+    ON notifications (user_id, issued_date, id);
+
+-- Notifications still to be emailed; only the small unsent tail is indexed.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_unsent
+    ON notifications (issued_date) WHERE emailed = false;
+
+-- Meter notification history.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_meter_issued_date
+    ON notifications (meter_number, issued_date);
+
+-- Notification reports and exports by date.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_issued_date
+    ON notifications (issued_date, id);
+
+-- A user's meters, and ownership checks.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_meters_user_id
+    ON meters (user_id, meter_number);
+
+-- Role loading for login, JWT authentication and the admin user listing.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_roles_user_id
+    ON user_roles (user_id);
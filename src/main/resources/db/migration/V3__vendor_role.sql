@@ -0,0 +1,4 @@
+-- ddl-auto never rewrites check constraints, so databases it created still reject ROLE_VENDOR.
+ALTER TABLE user_roles DROP CONSTRAINT IF EXISTS user_roles_role_check;
+ALTER TABLE user_roles ADD CONSTRAINT user_roles_role_check
+    CHECK (role IN ('ROLE_ADMIN', 'ROLE_CUSTOMER', 'ROLE_VENDOR'));
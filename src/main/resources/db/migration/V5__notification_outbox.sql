@@ -0,0 +1,12 @@
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS dispatch_attempts integer;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS next_attempt_at timestamp(6);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS last_error varchar(255);
+
+-- Digest reminders outgrow varchar(255); varchar to text needs no table rewrite.
+ALTER TABLE notifications ALTER COLUMN message TYPE text;
+
+-- Outbox claims order the unsent tail by next attempt. It also serves every
+-- unsent lookup, so it supersedes idx_notifications_unsent; see the .conf file.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notifications_pending
+    ON notifications (next_attempt_at) WHERE emailed = false;
+DROP INDEX CONCURRENTLY IF EXISTS idx_notifications_unsent;
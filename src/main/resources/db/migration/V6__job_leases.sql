@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS job_leases (
+    lease_key    varchar(100) NOT NULL,
+    owner        varchar(100) NOT NULL,
+    lease_until  timestamp(6) NOT NULL,
+    completed_at timestamp(6),
+    PRIMARY KEY (lease_key)
+);
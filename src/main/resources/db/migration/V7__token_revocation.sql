@@ -0,0 +1,11 @@
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_version integer;
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    revocation_key varchar(64)  NOT NULL,
+    expires_at     timestamp(6) NOT NULL,
+    revoked_at     timestamp(6) NOT NULL,
+    PRIMARY KEY (revocation_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,27 @@
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    family_id     uuid                        NOT NULL,
+    user_id       uuid                        NOT NULL,
+    token_hash    varchar(64)                 NOT NULL UNIQUE,
+    previous_hash varchar(64),
+    expiry_date   timestamp(6) with time zone NOT NULL,
+    PRIMARY KEY (family_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_previous_hash ON refresh_tokens (previous_hash);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expiry_date ON refresh_tokens (expiry_date);
+
+-- Carry live sessions over from the plaintext table, hashed the way Digests.sha256Hex does,
+-- so users are not logged out by the upgrade.
+DO $$
+BEGIN
+    IF to_regclass('refresh_token') IS NOT NULL THEN
+        INSERT INTO refresh_tokens (family_id, user_id, token_hash, expiry_date)
+        SELECT gen_random_uuid(), user_id, encode(sha256(convert_to(token, 'UTF8')), 'hex'), expiry_date
+        FROM refresh_token
+        WHERE user_id IS NOT NULL AND expiry_date > now()
+        ON CONFLICT (token_hash) DO NOTHING;
+    END IF;
+END $$;
+
+DROP TABLE IF EXISTS refresh_token;
@@ -0,0 +1,3 @@
+-- Admin token listing filtered by status, newest first; see the .conf file.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_purchased_tokens_status_purchased_date
+    ON purchased_tokens (token_status, purchased_date, id);
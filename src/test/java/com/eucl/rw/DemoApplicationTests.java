@@ -1,11 +1,19 @@
 package com.eucl.rw;
 
+import com.eucl.rw.support.EmbeddedDatabases;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 
 @SpringBootTest
 class DemoApplicationTests {
 
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedDatabases.register(registry, "eucl");
+	}
+
 	@Test
 	void contextLoads() {
 	}
@@ -0,0 +1,162 @@
+package com.eucl.rw;
+
+import com.eucl.rw.model.User;
+import com.eucl.rw.repository.UserRepository;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.EmbeddedDatabases;
+import com.eucl.rw.util.JwtTokenUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times token purchases over HTTP on their own and again while a crowd of clients keeps logging in with a wrong
+ * password, each attempt a full bcrypt check. Hashing is confined to one thread, so the storm queues there, or
+ * is turned away and waits out Retry-After, instead of taking the request threads and CPU that purchases need.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "management.health.mail.enabled=false",
+        "app.rate-limit.enabled=false",
+        "app.security.bcrypt.strength=12",
+        "app.auth.login.threads=1",
+        "app.auth.login.queue-capacity=8"
+})
+@Import(CustomerFixtures.class)
+class LoginStormTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginStormTests.class);
+
+    private static final int PURCHASES = 40;
+    private static final int STORM_CLIENTS = 16;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    private CustomerFixtures.Customer customer;
+    private HttpEntity<Void> purchaseRequest;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Storm");
+        User user = customer.user();
+        user.setPassword(passwordEncoder.encode("correct-password"));
+        userRepository.save(user);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(jwtTokenUtil.generateAccessToken(user));
+        purchaseRequest = new HttpEntity<>(headers);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void purchaseLatencyHoldsDuringLoginStorm() throws Exception {
+        timePurchases(10);
+        long[] quiet = timePurchases(PURCHASES);
+
+        AtomicBoolean storming = new AtomicBoolean(true);
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger turnedAway = new AtomicInteger();
+        ExecutorService storm = Executors.newFixedThreadPool(STORM_CLIENTS);
+        long[] stormed;
+        try {
+            for (int i = 0; i < STORM_CLIENTS; i++) {
+                storm.submit(() -> {
+                    Map<String, String> login = Map.of("email", customer.user().getEmail(), "password", "wrong-password");
+                    while (storming.get()) {
+                        ResponseEntity<String> response = restTemplate.postForEntity("/api/auth/login", login, String.class);
+                        logins.incrementAndGet();
+                        if (response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                            turnedAway.incrementAndGet();
+                            Thread.sleep(TimeUnit.SECONDS.toMillis(
+                                    Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))));
+                        }
+                    }
+                    return null;
+                });
+            }
+            // Let the hashing queue fill before timing.
+            Thread.sleep(1000);
+            stormed = timePurchases(PURCHASES);
+        } finally {
+            storming.set(false);
+            storm.shutdown();
+            storm.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        long quietMedian = percentile(quiet, 50);
+        long stormMedian = percentile(stormed, 50);
+        logger.info("Purchase latency quiet: median {} ms, p90 {} ms; during {} logins ({} turned away): median {} ms, p90 {} ms",
+                quietMedian, percentile(quiet, 90), logins.get(), turnedAway.get(), stormMedian, percentile(stormed, 90));
+
+        assertThat(turnedAway.get()).isPositive();
+        assertThat(stormMedian).isLessThanOrEqualTo(quietMedian * 2 + 10);
+    }
+
+    private long[] timePurchases(int count) {
+        long[] millis = new long[count];
+        for (int i = 0; i < count; i++) {
+            long started = System.nanoTime();
+            ResponseEntity<String> response = restTemplate.postForEntity(
+                    "/api/customer/tokens/purchase?meterNumber={meter}&amount={amount}",
+                    purchaseRequest, String.class, customer.meterNumber(), 100);
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        return millis;
+    }
+
+    private static long percentile(long[] millis, int percentile) {
+        List<Long> sorted = new ArrayList<>();
+        for (long value : millis) {
+            sorted.add(value);
+        }
+        sorted.sort(null);
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percentile / 100));
+    }
+}
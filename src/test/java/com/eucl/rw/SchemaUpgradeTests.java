@@ -0,0 +1,117 @@
+package com.eucl.rw;
+
+import com.eucl.rw.dto.NotificationDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.repository.NotificationRepository;
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.support.EmbeddedDatabases;
+import com.eucl.rw.util.Digests;
+import com.eucl.rw.util.PageCursor.TimeKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the application (ddl-auto=validate) on a database that ddl-auto created before the migrations existed
+ * and then upgraded part way, and checks Flyway baselines it and brings schema and data up to date.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "management.health.mail.enabled=false"
+})
+class SchemaUpgradeTests {
+
+    private static final String DATABASE = "schema_upgrade";
+    private static final String USER_ID = "00000000-0000-0000-0000-000000000001";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @DynamicPropertySource
+    static void legacyDatabase(DynamicPropertyRegistry registry) {
+        if (EmbeddedDatabases.createIfAbsent(DATABASE)) {
+            DataSource dataSource = EmbeddedDatabases.dataSource(DATABASE);
+            new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql")).execute(dataSource);
+
+            JdbcTemplate legacy = new JdbcTemplate(dataSource);
+            // Picked up by ddl-auto from the first entity changes of the series.
+            legacy.execute("ALTER TABLE purchased_tokens ADD COLUMN expires_at timestamp(6)");
+            legacy.execute("CREATE TABLE job_leases (lease_key varchar(100) NOT NULL, owner varchar(100) NOT NULL, " +
+                    "lease_until timestamp(6) NOT NULL, completed_at timestamp(6), PRIMARY KEY (lease_key))");
+
+            legacy.update("INSERT INTO users (id, name, email, phone, national_id, password) " +
+                    "VALUES ('" + USER_ID + "', 'Legacy', 'legacy@test.rw', '0788000000', 'NID-LEGACY', 'x')");
+            legacy.update("INSERT INTO user_roles (user_id, role) VALUES ('" + USER_ID + "', 'ROLE_CUSTOMER')");
+            legacy.update("INSERT INTO meters (meter_number, user_id) VALUES ('900001', '" + USER_ID + "')");
+            legacy.update("INSERT INTO purchased_tokens (id, token, meter_number, user_id, amount, token_value_days, " +
+                    "token_status, purchased_date) VALUES (gen_random_uuid(), '9000000000000001', '900001', '" + USER_ID +
+                    "', 300, 3, 'NEW', TIMESTAMP '2025-01-01 10:00:00')");
+            legacy.update("INSERT INTO notifications (id, user_id, meter_number, message, issued_date, emailed) " +
+                    "VALUES (gen_random_uuid(), '" + USER_ID + "', '900001', 'Legacy reminder', " +
+                    "TIMESTAMP '2025-01-03 10:00:00', false)");
+            // Written without a date, which the baseline schema allowed.
+            legacy.update("INSERT INTO purchased_tokens (id, token, meter_number, user_id, amount, token_value_days, " +
+                    "token_status) VALUES (gen_random_uuid(), '9000000000000002', '900001', '" + USER_ID + "', 100, 1, 'NEW')");
+            legacy.update("INSERT INTO notifications (id, user_id, meter_number, message, emailed) " +
+                    "VALUES (gen_random_uuid(), '" + USER_ID + "', '900001', 'Undated reminder', true)");
+            legacy.update("INSERT INTO refresh_token (token, user_id, expiry_date) " +
+                    "VALUES ('legacy-session', '" + USER_ID + "', now() + interval '1 day')");
+        }
+        EmbeddedDatabases.register(registry, DATABASE);
+    }
+
+    @Test
+    void legacyDatabaseIsBaselinedAndUpgraded() {
+        List<String> applied = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE success ORDER BY installed_rank", String.class);
+        assertThat(applied).containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12");
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT expires_at = TIMESTAMP '2025-01-04 10:00:00' FROM purchased_tokens WHERE token = '9000000000000001'",
+                Boolean.class)).isTrue();
+        // Made due by V10; the dispatcher may already have claimed it, which moves next_attempt_at on.
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT next_attempt_at IS NOT NULL FROM notifications WHERE message = 'Legacy reminder'",
+                Boolean.class)).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT user_id::text FROM refresh_tokens WHERE token_hash = ?",
+                String.class, Digests.sha256Hex("legacy-session"))).isEqualTo(USER_ID);
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('refresh_token') IS NULL", Boolean.class)).isTrue();
+
+        // Undated rows are dated at the epoch, so they come last in the listings instead of on no page at all.
+        UUID userId = UUID.fromString(USER_ID);
+        assertThat(tokenRepository.findViewsPageByUserId(userId, TimeKey.FIRST.at(), TimeKey.FIRST.id(), Limit.of(10)))
+                .extracting(TokenDTO::getToken).containsExactly("9000000000000001", "9000000000000002");
+        assertThat(notificationRepository.findViewsPageByUserId(userId, TimeKey.FIRST.at(), TimeKey.FIRST.id(), Limit.of(10)))
+                .extracting(NotificationDTO::getMessage).containsExactly("Legacy reminder", "Undated reminder");
+        assertThat(jdbcTemplate.queryForList("SELECT is_nullable FROM information_schema.columns " +
+                "WHERE (table_name, column_name) IN (('purchased_tokens', 'purchased_date'), ('notifications', 'issued_date'))",
+                String.class)).containsExactly("NO", "NO");
+
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role) VALUES ('" + USER_ID + "', 'ROLE_VENDOR')");
+
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE schemaname = 'public'", String.class))
+                .contains("idx_purchased_tokens_user_purchased_date", "idx_purchased_tokens_meter_status",
+                        "idx_purchased_tokens_purchased_date", "idx_purchased_tokens_status_expires_at",
+                        "idx_notifications_user_issued_date", "idx_notifications_pending", "idx_meters_user_id",
+                        "idx_user_roles_user_id")
+                .doesNotContain("idx_notifications_unsent");
+    }
+}
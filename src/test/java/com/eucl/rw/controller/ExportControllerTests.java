@@ -0,0 +1,145 @@
+package com.eucl.rw.controller;
+
+import com.eucl.rw.model.Notification;
+import com.eucl.rw.repository.NotificationRepository;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.EmbeddedDatabases;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "management.health.mail.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(CustomerFixtures.class)
+@WithMockUser(roles = "ADMIN")
+class ExportControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ExportController exportController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private CustomerFixtures.Customer customer;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Export");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void tokensStreamAsOneJsonObjectPerLine() throws Exception {
+        List<String> tokens = fixtures.purchase(customer, List.of(100.0, 200.0));
+
+        MvcResult result = mockMvc.perform(get("/api/admin/exports/tokens").param("meterNumber", customer.meterNumber()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("meterNumber").asText()).isEqualTo(customer.meterNumber());
+        assertThat(lines.stream().map(this::readToken)).containsExactlyInAnyOrderElementsOf(tokens);
+    }
+
+    @Test
+    void csvQuotesFieldsWithSeparatorsQuotesAndLineBreaks() throws Exception {
+        Notification notification = new Notification();
+        notification.setUser(customer.user());
+        notification.setMeterNumber(customer.meterNumber());
+        notification.setMessage("Balance low, \"top up\"\nsoon");
+        notification.setIssuedDate(LocalDateTime.now());
+        notification.setEmailed(true);
+        notificationRepository.save(notification);
+
+        MvcResult result = mockMvc.perform(get("/api/admin/exports/notifications")
+                        .param("meterNumber", customer.meterNumber())
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notifications.csv\""))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> records = Arrays.asList(body.split("\r\n"));
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0)).isEqualTo("id,meterNumber,message,issuedDate,emailed");
+        assertThat(records.get(1)).startsWith(notification.getId() + "," + customer.meterNumber() + ",")
+                .contains(",\"Balance low, \"\"top up\"\"\nsoon\",")
+                .endsWith(",true");
+    }
+
+    @Test
+    void exportBeyondTheCapIsTurnedAway() throws Exception {
+        Semaphore running = (Semaphore) ReflectionTestUtils.getField(exportController, "running");
+        int permits = running.drainPermits();
+        try {
+            mockMvc.perform(get("/api/admin/exports/tokens"))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        } finally {
+            running.release(permits);
+        }
+    }
+
+    private String readToken(String line) {
+        try {
+            return objectMapper.readTree(line).get("token").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
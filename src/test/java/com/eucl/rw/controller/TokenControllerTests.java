@@ -0,0 +1,124 @@
+package com.eucl.rw.controller;
+
+import com.eucl.rw.enums.ERole;
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import com.eucl.rw.util.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Token lookups stay public, but redeeming burns the token and needs the meter's owner or an admin.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "management.health.mail.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(CustomerFixtures.class)
+class TokenControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    private Customer owner;
+    private Customer stranger;
+    private String token;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        owner = fixtures.create("Token Owner");
+        stranger = fixtures.create("Token Stranger");
+        token = fixtures.purchase(owner, List.of(100.0)).get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(stranger);
+        fixtures.delete(owner);
+    }
+
+    @Test
+    void statusStaysPublic() throws Exception {
+        mockMvc.perform(get("/api/tokens/{token}/status", token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void anonymousRedemptionIsRejected() throws Exception {
+        mockMvc.perform(post("/api/tokens/{token}/redeem", token).param("meterNumber", owner.meterNumber()))
+                .andExpect(status().isUnauthorized());
+
+        assertThat(tokenStatus(token)).isEqualTo(ETokenStatus.NEW);
+    }
+
+    @Test
+    void customerCannotRedeemOnAnotherCustomersMeter() throws Exception {
+        mockMvc.perform(post("/api/tokens/{token}/redeem", token)
+                        .param("meterNumber", owner.meterNumber())
+                        .with(user(principal(stranger, ERole.ROLE_CUSTOMER))))
+                .andExpect(status().isForbidden());
+
+        assertThat(tokenStatus(token)).isEqualTo(ETokenStatus.NEW);
+    }
+
+    @Test
+    void vendorCannotRedeem() throws Exception {
+        mockMvc.perform(post("/api/tokens/{token}/redeem", token)
+                        .param("meterNumber", owner.meterNumber())
+                        .with(user(principal(stranger, ERole.ROLE_VENDOR))))
+                .andExpect(status().isForbidden());
+
+        assertThat(tokenStatus(token)).isEqualTo(ETokenStatus.NEW);
+    }
+
+    @Test
+    void ownerRedeemsOnTheirMeter() throws Exception {
+        mockMvc.perform(post("/api/tokens/{token}/redeem", token)
+                        .param("meterNumber", owner.meterNumber())
+                        .with(user(principal(owner, ERole.ROLE_CUSTOMER))))
+                .andExpect(status().isOk());
+
+        assertThat(tokenStatus(token)).isEqualTo(ETokenStatus.USED);
+    }
+
+    private ETokenStatus tokenStatus(String token) {
+        return tokenRepository.findByToken(token).orElseThrow().getTokenStatus();
+    }
+
+    private static UserPrincipal principal(Customer customer, ERole role) {
+        return new UserPrincipal(customer.user().getId(), customer.user().getEmail(), "not-used",
+                List.of(new SimpleGrantedAuthority(role.name())));
+    }
+}
@@ -0,0 +1,74 @@
+package com.eucl.rw.controller;
+
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "management.health.mail.enabled=false"
+})
+@AutoConfigureMockMvc
+@Import(CustomerFixtures.class)
+@WithMockUser(roles = "VENDOR")
+class VendorControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    private Customer customer;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Vendor Batch");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void nullLineIsRejectedAsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/vendor/tokens/purchase/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"meterNumber\": \"" + customer.meterNumber() + "\", \"amount\": 100}, null]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void invalidLinesAreReportedPerLine() throws Exception {
+        mockMvc.perform(post("/api/vendor/tokens/purchase/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"meterNumber\": \"" + customer.meterNumber() + "\", \"amount\": 100}, " +
+                                "{\"meterNumber\": \"" + customer.meterNumber() + "\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].token").exists())
+                .andExpect(jsonPath("$[1].error").value("Amount is required"));
+    }
+}
@@ -0,0 +1,410 @@
+package com.eucl.rw.repository;
+
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.support.EmbeddedDatabases;
+import com.eucl.rw.util.PageCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the hot-path repository queries against an embedded Postgres migrated by Flyway and fails
+ * if any of them has to read a large table without an index condition. Plans are taken with sequential scans,
+ * hash joins and merge joins disabled so the result does not depend on test data volume: Postgres then only
+ * reads a whole table (or a whole index) when no index can serve a predicate or join key. Full-table reads by
+ * design (exports without a range, the revocation cache warm-up, findAll) are not covered.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "management.health.mail.enabled=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTests {
+
+    private static final long LARGE_TABLE_ROWS = 10_000;
+    private static final int USERS = 20_000;
+    private static final int TOKENS = 200_000;
+    private static final int NOTIFICATIONS = 200_000;
+    private static final int PENDING_NOTIFICATIONS = 500;
+
+    private static final UUID USER = userId(42);
+    private static final String METER = "000042";
+    private static final String TOKEN = "0000000000000042";
+    private static final Limit PAGE = Limit.of(50);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private TokenExpirationRepository tokenExpirationRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRepository meterRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private Map<String, Long> tableRows;
+    private Set<String> partialIndexes;
+
+    @DynamicPropertySource
+    static void embeddedDatabase(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "query_plans");
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (id, name, email, phone, national_id, password, security_version) " +
+                "SELECT " + id(0, "i") + ", 'User ' || i, 'user' || i || '@plan.test', '07' || i, 'NID' || i, 'x', 0 " +
+                "FROM generate_series(1, " + USERS + ") i");
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role) " +
+                "SELECT " + id(0, "i") + ", 'ROLE_CUSTOMER' FROM generate_series(1, " + USERS + ") i");
+        jdbcTemplate.update("INSERT INTO meters (meter_number, user_id) " +
+                "SELECT lpad(i::text, 6, '0'), " + id(0, "i") + " FROM generate_series(1, " + USERS + ") i");
+
+        // Two minutes apart: the newest ten days are live (mostly NEW), everything older is USED or EXPIRED.
+        jdbcTemplate.update("INSERT INTO purchased_tokens (id, token, meter_number, user_id, amount, token_value_days, " +
+                "token_status, purchased_date, expires_at) " +
+                "SELECT " + id(1, "i") + ", lpad(i::text, 16, '0'), lpad(m::text, 6, '0'), " + id(0, "m") + ", 1000, 10, " +
+                "CASE WHEN i <= 7200 THEN CASE WHEN i % 4 = 0 THEN 'USED' ELSE 'NEW' END " +
+                "ELSE CASE WHEN i % 2 = 0 THEN 'USED' ELSE 'EXPIRED' END END, " +
+                "now() - i * interval '2 minutes', now() - i * interval '2 minutes' + interval '10 days' " +
+                "FROM generate_series(1, " + TOKENS + ") i, LATERAL (SELECT i % " + USERS + " + 1 AS m) meter");
+        jdbcTemplate.update("INSERT INTO notifications (id, user_id, meter_number, message, issued_date, emailed, " +
+                "dispatch_attempts, next_attempt_at) " +
+                "SELECT " + id(2, "i") + ", " + id(0, "m") + ", lpad(m::text, 6, '0'), 'Your token expires soon', " +
+                "now() - i * interval '2 minutes', i > " + PENDING_NOTIFICATIONS + ", 0, " +
+                "CASE WHEN i <= " + PENDING_NOTIFICATIONS + " THEN now() - i * interval '2 minutes' END " +
+                "FROM generate_series(1, " + NOTIFICATIONS + ") i, LATERAL (SELECT i % " + USERS + " + 1 AS m) meter");
+
+        // Expired refresh and revoked entries are purged on a schedule, so only a sliver of each is stale.
+        jdbcTemplate.update("INSERT INTO refresh_tokens (family_id, user_id, token_hash, expiry_date) " +
+                "SELECT " + id(3, "i") + ", " + id(0, "i") + ", md5('token' || i), " +
+                "CASE WHEN i % 100 = 0 THEN now() - interval '1 hour' ELSE now() + (i % 30 + 1) * interval '1 day' END " +
+                "FROM generate_series(1, " + USERS + ") i");
+        jdbcTemplate.update("INSERT INTO refresh_token_history (token_hash, family_id, superseded_at) " +
+                "SELECT md5('previous' || i || '-' || g), " + id(3, "i") + ", now() - g * interval '1 day' " +
+                "FROM generate_series(1, " + USERS + ") i, generate_series(1, 3) g");
+        jdbcTemplate.update("INSERT INTO revoked_tokens (revocation_key, revoked_at, expires_at) " +
+                "SELECT md5('revoked' || i), now() - i * interval '4 seconds', " +
+                "now() - i * interval '4 seconds' + interval '1 day' FROM generate_series(1, " + USERS + ") i");
+
+        jdbcTemplate.execute("ANALYZE");
+        tableRows = jdbcTemplate.queryForList("SELECT relname, reltuples::bigint AS rows FROM pg_class " +
+                        "WHERE relkind = 'r' AND relnamespace = 'public'::regnamespace").stream()
+                .collect(Collectors.toMap(row -> (String) row.get("relname"), row -> (Long) row.get("rows")));
+        partialIndexes = Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT indexrelid::regclass::text FROM pg_index WHERE indpred IS NOT NULL", String.class));
+    }
+
+    @Test
+    void tokenQueriesUseIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        PageCursor.TimeKey first = PageCursor.TimeKey.FIRST;
+
+        assertIndexed(() -> tokenRepository.findViewByToken(TOKEN));
+        assertIndexed(() -> tokenRepository.existsByToken(TOKEN));
+        assertIndexed(() -> tokenRepository.findExistingTokens(List.of(TOKEN, "0000000000000043")));
+        assertIndexed(() -> tokenRepository.redeemToken(TOKEN, METER, now));
+        assertIndexed(() -> tokenRepository.findByMeter_MeterNumber(METER));
+        assertIndexed(() -> tokenRepository.findActiveTokensByMeter(METER));
+        assertIndexed(() -> tokenRepository.findViewsByMeterNumber(METER));
+        assertIndexed(() -> tokenRepository.findByUser_Id(USER));
+        assertIndexed(() -> tokenRepository.findViewsPage(first.at(), first.id(), PAGE));
+        assertIndexed(() -> tokenRepository.findViewsPageByTokenStatus(ETokenStatus.NEW, first.at(), first.id(), PAGE));
+        assertIndexed(() -> tokenRepository.findViewsPageByTokenStatus(ETokenStatus.USED, first.at(), first.id(), PAGE));
+        assertIndexed(() -> tokenRepository.findViewsPageByUserId(USER, first.at(), first.id(), PAGE));
+        assertIndexed(() -> tokenRepository.findTokensAboutToExpire(now.plusDays(1)));
+        assertIndexed(() -> tokenRepository.findTokensNearingExpiration(now, now.plusHours(5)));
+        assertIndexed(() -> tokenExpirationRepository.findTokensNearingExpiration(now, now.plusHours(5)));
+        assertIndexed(() -> tokenRepository.findTokenReminders(now.plusHours(4), now.plusHours(5), 1, 0));
+        assertIndexed(() -> tokenRepository.expireTokenChunk(now, LocalDateTime.of(1970, 1, 1, 0, 0), 1000));
+        assertIndexed(() -> {
+            try (Stream<?> rows = tokenRepository.streamViews(now.minusDays(1), now, null, null)) {
+                return rows.count();
+            }
+        });
+    }
+
+    @Test
+    void notificationQueriesUseIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        PageCursor.TimeKey first = PageCursor.TimeKey.FIRST;
+        List<UUID> ids = List.of(notificationId(1), notificationId(2));
+
+        assertIndexed(() -> notificationRepository.findByUser_Id(USER));
+        assertIndexed(() -> notificationRepository.findByUser(userRepository.getReferenceById(USER)));
+        assertIndexed(() -> notificationRepository.findViewsPageByUserId(USER, first.at(), first.id(), PAGE));
+        assertIndexed(() -> notificationRepository.findByMeterNumber(METER));
+        assertIndexed(() -> notificationRepository.findViewsByMeterNumber(METER));
+        assertIndexed(() -> notificationRepository.findNotificationsBetweenDates(now.minusHours(1), now));
+        assertIndexed(() -> notificationRepository.findByEmailed(false));
+        assertIndexed(() -> notificationRepository.claimPendingEmails(now, now.plusMinutes(5), 100));
+        assertIndexed(() -> notificationRepository.findAllWithUserByIdIn(ids));
+        assertIndexed(() -> notificationRepository.markEmailed(ids));
+        assertIndexed(() -> notificationRepository.scheduleRetry(ids.get(0), now.plusMinutes(5), "retry"));
+        assertIndexed(() -> {
+            try (Stream<?> rows = notificationRepository.streamViews(now.minusDays(1), now, null, null)) {
+                return rows.count();
+            }
+        });
+    }
+
+    @Test
+    void userAndMeterQueriesUseIndexes() {
+        List<UUID> ids = List.of(USER, userId(43));
+
+        assertIndexed(() -> userRepository.findByEmail("user42@plan.test"));
+        assertIndexed(() -> userRepository.findWithRolesById(USER));
+        assertIndexed(() -> userRepository.findByPhone("0742"));
+        assertIndexed(() -> userRepository.findByNationalId("NID42"));
+        assertIndexed(() -> userRepository.existsByEmail("user42@plan.test"));
+        assertIndexed(() -> userRepository.existsByPhone("0742"));
+        assertIndexed(() -> userRepository.existsByNationalId("NID42"));
+        assertIndexed(() -> userRepository.findIdsPage("", PAGE));
+        assertIndexed(() -> userRepository.findRowsByIdIn(ids));
+        assertIndexed(() -> userRepository.findRowsById(USER));
+        assertIndexed(() -> userRepository.findSecurityVersionById(USER));
+        assertIndexed(() -> userRepository.updatePassword(USER, "x", "y"));
+
+        assertIndexed(() -> meterRepository.findByMeterNumber(METER));
+        assertIndexed(() -> meterRepository.existsByMeterNumber(METER));
+        assertIndexed(() -> meterRepository.existsByMeterNumberAndUser_Id(METER, USER));
+        assertIndexed(() -> meterRepository.findByUser_Id(USER));
+        assertIndexed(() -> meterRepository.findByUser(userRepository.getReferenceById(USER)));
+        assertIndexed(() -> meterRepository.findViewsByUserId(USER));
+        assertIndexed(() -> meterRepository.findViewsPage("", PAGE));
+        assertIndexed(() -> meterRepository.findAllWithUserByMeterNumberIn(List.of(METER, "000043")));
+    }
+
+    @Test
+    void authQueriesUseIndexes() {
+        Instant now = Instant.now();
+        LocalDateTime localNow = LocalDateTime.now();
+
+        assertIndexed(() -> refreshTokenRepository.findByTokenHash("missing"));
+        assertIndexed(() -> refreshTokenRepository.findFamilyBySupersededHash("missing"));
+        assertIndexed(() -> refreshTokenRepository.rotate("missing", "next", now, now.plus(7, ChronoUnit.DAYS)));
+        assertIndexed(() -> refreshTokenRepository.deleteByTokenHash("missing"));
+        assertIndexed(() -> refreshTokenRepository.deleteByUserId(USER));
+        assertIndexed(() -> refreshTokenRepository.deleteExpiredBatch(now, 1000));
+        assertIndexed(() -> refreshTokenRepository.deleteSupersededBatch(now.minus(7, ChronoUnit.DAYS), 1000));
+
+        assertIndexed(() -> revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(localNow.minusMinutes(1), localNow));
+        assertIndexed(() -> revokedTokenRepository.deleteExpired(localNow));
+    }
+
+    /**
+     * Runs the call in a rolled-back transaction, explaining every statement it issues on this thread.
+     */
+    private void assertIndexed(Supplier<?> call) {
+        List<Plan> plans = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return ExplainingDataSource.capture(call);
+        });
+
+        assertThat(plans).as("statements issued").isNotEmpty();
+        for (Plan plan : plans) {
+            List<String> scans = new ArrayList<>();
+            collectUnindexedScans(plan.plan(), scans);
+            assertThat(scans).as("unindexed scans in%n%s%n%s", plan.sql(), plan.plan().toPrettyString()).isEmpty();
+        }
+    }
+
+    private void collectUnindexedScans(JsonNode node, List<String> scans) {
+        if (node.isArray()) {
+            node.forEach(child -> collectUnindexedScans(child, scans));
+            return;
+        }
+        String type = node.path("Node Type").asText();
+        String relation = node.path("Relation Name").asText();
+        // A partial index scan needs no condition: its predicate already is the filter.
+        boolean unindexed = type.equals("Seq Scan") || (type.startsWith("Index") && !node.has("Index Cond")
+                && !partialIndexes.contains(node.path("Index Name").asText()));
+        if (unindexed && tableRows.getOrDefault(relation, 0L) >= LARGE_TABLE_ROWS) {
+            scans.add(type + " on " + relation);
+        }
+        if (node.has("Plan")) {
+            collectUnindexedScans(node.get("Plan"), scans);
+        }
+        node.path("Plans").forEach(child -> collectUnindexedScans(child, scans));
+    }
+
+    private static String id(int namespace, String column) {
+        return "('00000000-0000-0000-" + String.format("%04x", namespace) + "-' || lpad(to_hex(" + column + "), 12, '0'))::uuid";
+    }
+
+    private static UUID userId(int n) {
+        return new UUID(0L, n);
+    }
+
+    private static UUID notificationId(int n) {
+        return new UUID(0L, (2L << 48) | n);
+    }
+
+    record Plan(String sql, JsonNode plan) {
+    }
+
+    @TestConfiguration
+    static class ExplainConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new ExplainingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Re-issues each SELECT, UPDATE and DELETE as EXPLAIN (FORMAT JSON) with the same bound parameters on the
+     * same connection and the planner limited to index-driven plans, while a capture is active on the calling
+     * thread.
+     */
+    static class ExplainingDataSource extends DelegatingDataSource {
+
+        private static final ThreadLocal<List<Plan>> PLANS = new ThreadLocal<>();
+        private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+        private static final String INDEX_DRIVEN_PLANS =
+                "SET enable_seqscan = off; SET enable_hashjoin = off; SET enable_mergejoin = off";
+        private static final String DEFAULT_PLANS =
+                "RESET enable_seqscan; RESET enable_hashjoin; RESET enable_mergejoin";
+
+        ExplainingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static List<Plan> capture(Supplier<?> call) {
+            PLANS.set(new ArrayList<>());
+            try {
+                call.get();
+                return PLANS.get();
+            } finally {
+                PLANS.remove();
+            }
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return explaining(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return explaining(super.getConnection(username, password));
+        }
+
+        private static Connection explaining(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("prepareStatement") && isExplainable((String) args[0])) {
+                            return explaining(connection, (PreparedStatement) result, (String) args[0]);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement explaining(Connection connection, PreparedStatement statement, String sql) {
+            List<Object[]> bindings = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer) {
+                            bindings.add(new Object[]{method, args});
+                        } else if (name.equals("clearParameters")) {
+                            bindings.clear();
+                        } else if (name.startsWith("execute") && args == null && PLANS.get() != null) {
+                            PLANS.get().add(new Plan(sql, explain(connection, sql, bindings)));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static JsonNode explain(Connection connection, String sql, List<Object[]> bindings) throws Exception {
+            try (Statement settings = connection.createStatement();
+                 PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+                settings.execute(INDEX_DRIVEN_PLANS);
+                for (Object[] binding : bindings) {
+                    ((Method) binding[0]).invoke(explain, (Object[]) binding[1]);
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return OBJECT_MAPPER.readTree(plan.getString(1));
+                } finally {
+                    settings.execute(DEFAULT_PLANS);
+                }
+            }
+        }
+
+        private static boolean isExplainable(String sql) {
+            String verb = sql.stripLeading().toLowerCase(Locale.ROOT);
+            return verb.startsWith("select") || verb.startsWith("update") || verb.startsWith("delete")
+                    || verb.startsWith("with");
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.repository.JobLeaseRepository;
+import com.eucl.rw.service.NotificationService;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the reminder job as two nodes against the shared lease table, with the reminder itself stubbed out so
+ * the only shared state is the lease rows.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ExpirationReminderLeaseTests {
+
+    private static final int SHARDS = 8;
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+    private final List<ExpirationReminderServiceImpl> runners = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "reminder_leases");
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM job_leases");
+    }
+
+    @AfterEach
+    void tearDown() {
+        runners.forEach(ExpirationReminderServiceImpl::shutdown);
+    }
+
+    @Test
+    void concurrentRunnersNeverClaimTheSameShard() throws Exception {
+        ExpirationReminderServiceImpl first = runner("node-a");
+        ExpirationReminderServiceImpl second = runner("node-b");
+        CyclicBarrier start = new CyclicBarrier(2);
+
+        ExecutorService nodes = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> a = nodes.submit(() -> {
+                start.await();
+                return first.runReminders();
+            });
+            Future<Integer> b = nodes.submit(() -> {
+                start.await();
+                return second.runReminders();
+            });
+            assertThat(a.get() + b.get()).isEqualTo(SHARDS);
+        } finally {
+            nodes.shutdown();
+        }
+
+        List<Integer> shards = processed.values().stream().flatMap(List::stream).toList();
+        assertThat(shards).containsExactlyInAnyOrderElementsOf(IntStream.range(0, SHARDS).boxed().toList());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM job_leases WHERE completed_at IS NOT NULL", Integer.class)).isEqualTo(SHARDS);
+    }
+
+    @Test
+    void expiredLeaseIsReclaimed() {
+        LocalDateTime now = LocalDateTime.now();
+        // Shard 0 was claimed by a node that died mid-run; shard 1 is still being worked on elsewhere.
+        jdbcTemplate.update("INSERT INTO job_leases (lease_key, owner, lease_until) VALUES (?, 'crashed-node', ?)",
+                leaseKey(0), now.minusMinutes(1));
+        jdbcTemplate.update("INSERT INTO job_leases (lease_key, owner, lease_until) VALUES (?, 'busy-node', ?)",
+                leaseKey(1), now.plusMinutes(5));
+
+        runner("node-a").runReminders();
+
+        assertThat(processed.get("node-a")).contains(0).doesNotContain(1).hasSize(SHARDS - 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT owner FROM job_leases WHERE lease_key = ? AND completed_at IS NOT NULL",
+                String.class, leaseKey(0))).isEqualTo("node-a");
+        assertThat(jdbcTemplate.queryForObject("SELECT owner FROM job_leases WHERE lease_key = ? AND completed_at IS NULL",
+                String.class, leaseKey(1))).isEqualTo("busy-node");
+    }
+
+    @Test
+    void completedShardIsNotProcessedAgain() {
+        runner("node-a").runReminders();
+        assertThat(processed.get("node-a")).hasSize(SHARDS);
+
+        // Even once the lease itself has run out, completion keeps the window closed.
+        jdbcTemplate.update("UPDATE job_leases SET lease_until = ?", LocalDateTime.now().minusMinutes(1));
+        assertThat(runner("node-b").runReminders()).isZero();
+        assertThat(runner("node-a").runReminders()).isZero();
+
+        assertThat(processed.get("node-a")).hasSize(SHARDS);
+        assertThat(processed).doesNotContainKey("node-b");
+    }
+
+    private ExpirationReminderServiceImpl runner(String nodeId) {
+        NotificationService notifications = mock(NotificationService.class);
+        when(notifications.sendExpirationNotifications(any(), any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            // Long enough for the other node to reach the same shards while this one holds them.
+            Thread.sleep(50);
+            processed.computeIfAbsent(nodeId, node -> new CopyOnWriteArrayList<>()).add(invocation.getArgument(3));
+            return 1;
+        });
+
+        ExpirationReminderServiceImpl runner =
+                new ExpirationReminderServiceImpl(notifications, jobLeaseRepository, transactionManager, 4, nodeId);
+        ReflectionTestUtils.setField(runner, "shardCount", SHARDS);
+        ReflectionTestUtils.setField(runner, "leaseMs", 60_000L);
+        ReflectionTestUtils.setField(runner, "leaseRetentionHours", 24L);
+        runners.add(runner);
+        return runner;
+    }
+
+    /** Mirrors the key the job derives for the current window. */
+    private static String leaseKey(int shard) {
+        LocalDateTime windowEnd = LocalDateTime.now().plusHours(5).truncatedTo(ChronoUnit.HOURS);
+        return "expiry-reminders:" + windowEnd + ":" + shard + "/" + SHARDS;
+    }
+}
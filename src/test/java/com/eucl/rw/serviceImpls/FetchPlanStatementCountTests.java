@@ -0,0 +1,199 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.enums.ERole;
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.model.Meter;
+import com.eucl.rw.model.Notification;
+import com.eucl.rw.model.Token;
+import com.eucl.rw.model.User;
+import com.eucl.rw.response.CursorPage;
+import com.eucl.rw.service.CustomUserDetailsService;
+import com.eucl.rw.service.MeterService;
+import com.eucl.rw.service.NotificationService;
+import com.eucl.rw.service.TokenService;
+import com.eucl.rw.service.UserService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.eucl.rw.serviceImpls.FetchPlanStatementCountTests$StatementCounter"
+})
+@Import(CustomerFixtures.class)
+class FetchPlanStatementCountTests {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private MeterService meterService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    private Customer customer;
+    private User user;
+    private Meter meter;
+    private List<String> tokens;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Fetch Plan Test");
+        user = customer.user();
+        meter = customer.meter();
+        tokens = fixtures.purchase(customer, List.of(100.0, 200.0, 300.0));
+        notificationService.createNotification(user.getId(), meter.getMeterNumber(), "first");
+        notificationService.createNotification(user.getId(), meter.getMeterNumber(), "second");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void tokenReadsRunOneStatement() {
+        assertThat(statements(() -> tokenService.getUserTokens(user.getId(), null, null)).getItems()).hasSize(3);
+        assertStatements(1);
+        assertThat(statements(() -> tokenService.getTokensByMeter(meter.getMeterNumber()))).hasSize(3);
+        assertStatements(1);
+        assertThat(statements(() -> tokenService.getTokens(ETokenStatus.NEW, null, null)).getItems()).isNotEmpty();
+        assertStatements(1);
+        assertThat(statements(() -> tokenService.getTokens(null, null, null)).getItems()).isNotEmpty();
+        assertStatements(1);
+        assertThat(statements(() -> tokenService.validateToken(tokens.get(0))).getMeterNumber())
+                .isEqualTo(meter.getMeterNumber());
+        assertStatements(1);
+    }
+
+    @Test
+    void tokenPagesRunOneStatementEach() {
+        CursorPage<TokenDTO> first = statements(() -> tokenService.getUserTokens(user.getId(), null, 2));
+        assertStatements(1);
+        assertThat(first.getItems()).hasSize(2);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        CursorPage<TokenDTO> second = statements(() -> tokenService.getUserTokens(user.getId(), first.getNextCursor(), 2));
+        assertStatements(1);
+        assertThat(second.getItems()).hasSize(1);
+        assertThat(second.getNextCursor()).isNull();
+
+        assertThat(Stream.concat(first.getItems().stream(), second.getItems().stream()).map(TokenDTO::getToken))
+                .containsExactlyInAnyOrderElementsOf(tokens);
+    }
+
+    @Test
+    void reminderRunLoadsMeterAndUserInOneStatement() {
+        List<Token> expiring = statements(() -> tokenService.checkExpiringTokens(LocalDateTime.now().plusDays(1).plusHours(1)));
+        assertStatements(1);
+
+        Token token = expiring.stream()
+                .filter(candidate -> candidate.getMeter().getMeterNumber().equals(meter.getMeterNumber()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(token.getUser().getEmail()).isEqualTo(user.getEmail());
+        assertThat(token.getMeter().getUser().getId()).isEqualTo(user.getId());
+        assertStatements(1);
+    }
+
+    @Test
+    void profileReadsRunOneStatement() {
+        assertThat(statements(() -> userService.getUserView(user.getId())).getRoles()).containsExactly(ERole.ROLE_CUSTOMER);
+        assertStatements(1);
+        assertThat(statements(() -> userService.getUserById(user.getId()).getRoles())).containsExactly(ERole.ROLE_CUSTOMER);
+        assertStatements(1);
+        assertThat(statements(() -> userDetailsService.loadUserByUsername(user.getEmail()).getAuthorities())).hasSize(1);
+        assertStatements(1);
+        assertThat(statements(() -> userService.getUsers(null, null)).getItems()).isNotEmpty();
+        assertStatements(2);
+    }
+
+    @Test
+    void meterReadsRunOneStatement() {
+        assertThat(statements(() -> meterService.getMetersByUser(user.getId()))).hasSize(1);
+        assertStatements(1);
+        assertThat(statements(() -> userService.getUserMeters(user.getId()))).hasSize(1);
+        assertStatements(1);
+        assertThat(statements(() -> meterService.getMeters(null, null)).getItems()).isNotEmpty();
+        assertStatements(1);
+        assertThat(statements(() -> meterService.getMeterByNumber(meter.getMeterNumber()).getUser().getId()))
+                .isEqualTo(user.getId());
+        assertStatements(1);
+    }
+
+    @Test
+    void notificationReadsRunOneStatement() {
+        assertThat(statements(() -> notificationService.getUserNotifications(user.getId(), null, null)).getItems()).hasSize(2);
+        assertStatements(1);
+        assertThat(statements(() -> notificationService.getMeterNotifications(meter.getMeterNumber()))).hasSize(2);
+        assertStatements(1);
+
+        List<Notification> pending = statements(() -> notificationService.getPendingEmailNotifications());
+        assertStatements(1);
+        assertThat(pending)
+                .filteredOn(notification -> notification.getUser().getId().equals(user.getId()))
+                .extracting(notification -> notification.getUser().getEmail())
+                .containsOnly(user.getEmail());
+        assertStatements(1);
+    }
+
+    private <T> T statements(Supplier<T> call) {
+        StatementCounter.reset();
+        return call.get();
+    }
+
+    private void assertStatements(long expected) {
+        assertThat(StatementCounter.count()).isEqualTo(expected);
+    }
+
+    public static class StatementCounter implements StatementInspector {
+        private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+        static void reset() {
+            STATEMENTS.get()[0] = 0;
+        }
+
+        static long count() {
+            return STATEMENTS.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get()[0]++;
+            return sql;
+        }
+    }
+}
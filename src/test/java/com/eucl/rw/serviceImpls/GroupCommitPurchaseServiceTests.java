@@ -0,0 +1,93 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.dto.PurchaseLineDTO;
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.response.PurchaseLineResponse;
+import com.eucl.rw.service.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Failure paths of the group committer: a batch that blows up, a batch that never finishes and a committer
+ * that is gone must each fail the waiting purchases instead of blocking them.
+ */
+class GroupCommitPurchaseServiceTests {
+
+    private final TokenService tokenService = mock(TokenService.class);
+    private final GroupCommitPurchaseServiceImpl service = new GroupCommitPurchaseServiceImpl(tokenService);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 8);
+        ReflectionTestUtils.setField(service, "maxDelayMs", 1L);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        ReflectionTestUtils.setField(service, "timeoutMs", 500L);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.stop();
+    }
+
+    @Test
+    void errorFailsOnlyItsBatch() {
+        when(tokenService.generateTokens(anyList()))
+                .thenThrow(new AssertionError("simulated"))
+                .thenAnswer(invocation -> purchased(invocation.getArgument(0)));
+
+        assertThatThrownBy(() -> service.purchase("100001", 100.0))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Purchase failed, please retry");
+
+        assertThat(service.purchase("100001", 100.0).getMeterNumber()).isEqualTo("100001");
+    }
+
+    @Test
+    void stuckBatchTimesOut() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(tokenService.generateTokens(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return purchased(invocation.getArgument(0));
+        });
+
+        try {
+            assertThatThrownBy(() -> service.purchase("100001", 100.0))
+                    .hasMessageContaining("not confirmed in time");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void purchasesAreRejectedOnceCommitterStopped() throws InterruptedException {
+        service.stop();
+
+        assertThatThrownBy(() -> service.purchase("100001", 100.0))
+                .hasMessage("Purchases are temporarily unavailable, please retry");
+    }
+
+    private static List<PurchaseLineResponse> purchased(List<PurchaseLineDTO> lines) {
+        return IntStream.range(0, lines.size())
+                .mapToObj(i -> PurchaseLineResponse.purchased(i, lines.get(i), new TokenDTO(UUID.randomUUID(),
+                        lines.get(i).getMeterNumber(), "1234567890123456", ETokenStatus.NEW, 1,
+                        LocalDateTime.now(), LocalDateTime.now().plusDays(1), lines.get(i).getAmount())))
+                .toList();
+    }
+}
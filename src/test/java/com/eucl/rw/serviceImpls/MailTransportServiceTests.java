@@ -0,0 +1,203 @@
+package com.eucl.rw.serviceImpls;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MailTransportServiceTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailTransportServiceTests.class);
+
+    private static final int THROUGHPUT_MESSAGES = 400;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<MailTransportServiceImpl> transports = new ArrayList<>();
+    private GreenMail smtp;
+
+    @BeforeEach
+    void setUp() {
+        smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        smtp.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transports.forEach(MailTransportServiceImpl::shutdown);
+        smtp.stop();
+    }
+
+    @Test
+    void connectionIsReusedAcrossSessions() {
+        MailTransportServiceImpl transport = transport(smtp.getSmtp().getPort(), 1, 2);
+
+        assertThat(transport.send(messages(5))).isEmpty();
+        assertThat(transport.send(messages(3))).isEmpty();
+
+        assertThat(smtp.getReceivedMessages()).hasSize(8);
+        assertThat(connects()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedMessageKeepsTheConnection() {
+        MailTransportServiceImpl transport = transport(smtp.getSmtp().getPort(), 1, 10);
+        List<SimpleMailMessage> messages = messages(3);
+        messages.get(1).setTo(new String[0]);
+
+        Map<SimpleMailMessage, String> failures = transport.send(messages);
+
+        assertThat(failures).containsOnlyKeys(messages.get(1));
+        assertThat(smtp.getReceivedMessages()).hasSize(2);
+        assertThat(connects()).isEqualTo(1);
+    }
+
+    @Test
+    void droppedConnectionIsReopened() {
+        int port = smtp.getSmtp().getPort();
+        MailTransportServiceImpl transport = transport(port, 1, 10);
+        assertThat(transport.send(messages(2))).isEmpty();
+
+        // The server goes away and comes back, so the pooled connection is dead when the next session starts
+        smtp.stop();
+        smtp = new GreenMail(ServerSetupTest.SMTP.port(port));
+        smtp.start();
+
+        assertThat(transport.send(messages(2))).isEmpty();
+        assertThat(smtp.getReceivedMessages()).hasSize(2);
+        assertThat(connects()).isEqualTo(2);
+    }
+
+    @Test
+    void unreachableServerFailsEveryMessage() throws IOException {
+        MailTransportServiceImpl transport = transport(unusedPort(), 2, 2);
+        List<SimpleMailMessage> messages = messages(5);
+
+        Map<SimpleMailMessage, String> failures = transport.send(messages);
+
+        assertThat(failures).hasSize(5).containsKeys(messages.toArray(new SimpleMailMessage[0]));
+        assertThat(failures.values()).allMatch(error -> error.contains("connect"));
+        assertThat(connects()).isZero();
+    }
+
+    /**
+     * Same messages, same four-way concurrency, against a local SMTP server: one connection per message, as the
+     * dispatcher sent before, versus sessions of 50 messages over four pooled connections.
+     */
+    @Test
+    void pooledConnectionsOutpaceOneConnectionPerMessage() throws Exception {
+        CountingMailSender sender = new CountingMailSender(smtp.getSmtp().getPort());
+        MailTransportServiceImpl sessions = transport(smtp.getSmtp().getPort(), 4, 50);
+
+        // Warm up both paths before timing them.
+        sendOnePerConnection(sender, messages(THROUGHPUT_MESSAGES / 4));
+        sessions.send(messages(THROUGHPUT_MESSAGES / 4));
+
+        sender.connects.set(0);
+        long started = System.nanoTime();
+        sendOnePerConnection(sender, messages(THROUGHPUT_MESSAGES));
+        double perMessageRate = rate(started);
+        long perMessageConnects = sender.connects.get();
+
+        started = System.nanoTime();
+        assertThat(sessions.send(messages(THROUGHPUT_MESSAGES))).isEmpty();
+        double sessionRate = rate(started);
+
+        logger.info("One connection per message: {} msg/s over {} connections; pooled sessions of 50: {} msg/s over {} connections",
+                Math.round(perMessageRate), perMessageConnects, Math.round(sessionRate), connects());
+        assertThat(perMessageConnects).isEqualTo(THROUGHPUT_MESSAGES);
+        assertThat(connects()).isLessThanOrEqualTo(4);
+        // Measured at roughly thirty times the rate locally; asking for twice leaves room for a busy machine.
+        assertThat(sessionRate).isGreaterThan(perMessageRate * 2);
+    }
+
+    private MailTransportServiceImpl transport(int port, int connections, int messagesPerSession) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        MailTransportServiceImpl transport =
+                new MailTransportServiceImpl(sender, meterRegistry, connections, messagesPerSession);
+        transports.add(transport);
+        return transport;
+    }
+
+    private long connects() {
+        return Math.round(meterRegistry.find("mail.transport.connects").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum());
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double rate(long started) {
+        return THROUGHPUT_MESSAGES / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private static void sendOnePerConnection(JavaMailSender sender, List<SimpleMailMessage> messages) throws Exception {
+        Semaphore connections = new Semaphore(4);
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SimpleMailMessage message : messages) {
+                senders.submit(() -> {
+                    connections.acquire();
+                    try {
+                        sender.send(message);
+                    } finally {
+                        connections.release();
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    private static final class CountingMailSender extends JavaMailSenderImpl {
+        private final AtomicLong connects = new AtomicLong();
+
+        private CountingMailSender(int port) {
+            setHost("localhost");
+            setPort(port);
+        }
+
+        @Override
+        protected Transport connectTransport() throws MessagingException {
+            connects.incrementAndGet();
+            return super.connectTransport();
+        }
+    }
+
+    private static List<SimpleMailMessage> messages(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo("customer" + i + "@test.rw");
+            message.setText("Reminder " + i);
+            return message;
+        }).toList();
+    }
+}
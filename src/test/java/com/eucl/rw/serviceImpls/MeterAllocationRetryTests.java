@@ -0,0 +1,136 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.model.Meter;
+import com.eucl.rw.repository.MeterRepository;
+import com.eucl.rw.service.MeterAllocationService;
+import com.eucl.rw.service.MeterService;
+import com.eucl.rw.service.UserService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Meter numbers taken on another node are skipped, and numbers reserved by a rolled back registration are
+ * handed back to the bitmap.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Import(CustomerFixtures.class)
+class MeterAllocationRetryTests {
+
+    private static final String TAKEN_ELSEWHERE = "999998";
+    private static final String ASSIGNED = "999997";
+    private static final String FAILED_INSERT = "999996";
+
+    @Autowired
+    private MeterService meterService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @MockitoSpyBean
+    private MeterAllocationService meterAllocationService;
+
+    @MockitoSpyBean
+    private MeterRepository meterRepository;
+
+    private Customer other;
+    private Customer customer;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        other = fixtures.create("Other Node Customer");
+        customer = fixtures.create("Allocation Test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM meters WHERE meter_number IN (?, ?)", TAKEN_ELSEWHERE, ASSIGNED);
+        meterAllocationService.release(TAKEN_ELSEWHERE);
+        meterAllocationService.release(ASSIGNED);
+        meterAllocationService.release(FAILED_INSERT);
+        meterService.getMetersByUser(customer.user().getId()).stream()
+                .filter(meter -> !meter.getMeterNumber().equals(customer.meterNumber()))
+                .forEach(meter -> meterService.deleteMeter(meter.getMeterNumber()));
+        fixtures.delete(customer);
+        fixtures.delete(other);
+    }
+
+    @Test
+    void registrationSkipsNumberTakenOnAnotherNode() {
+        // Inserted behind the bitmap's back, as another node would.
+        jdbcTemplate.update("INSERT INTO meters (meter_number, user_id) VALUES (?, ?)", TAKEN_ELSEWHERE, other.user().getId());
+        doReturn(TAKEN_ELSEWHERE).doCallRealMethod().when(meterAllocationService).allocate();
+
+        Meter meter = meterService.registerMeter(customer.user().getId());
+
+        assertThat(meter.getMeterNumber()).isNotEqualTo(TAKEN_ELSEWHERE);
+        assertThat(meterService.isMeterOwnedBy(meter.getMeterNumber(), customer.user().getId())).isTrue();
+        assertThat(meterService.isMeterOwnedBy(TAKEN_ELSEWHERE, other.user().getId())).isTrue();
+        assertThat(meterAllocationService.reserve(TAKEN_ELSEWHERE)).isFalse();
+    }
+
+    @Test
+    void failedInsertReleasesNumber() {
+        // As when the user is deleted between the existence check and the insert.
+        doAnswer(invocation -> {
+            // Taken from the bitmap, as a real allocation would be.
+            assertThat(meterAllocationService.reserve(FAILED_INSERT)).isTrue();
+            return FAILED_INSERT;
+        }).doCallRealMethod().when(meterAllocationService).allocate();
+        doThrow(new DataIntegrityViolationException("meters_user_id_fkey"))
+                .when(meterRepository).insertIfAbsent(eq(FAILED_INSERT), any());
+
+        assertThatThrownBy(() -> meterService.registerMeter(customer.user().getId()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(meterAllocationService.reserve(FAILED_INSERT)).isTrue();
+    }
+
+    @Test
+    void rolledBackAssignmentReleasesNumber() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            userService.assignMeterToUser(customer.user().getId(), ASSIGNED);
+            status.setRollbackOnly();
+        });
+
+        assertThat(meterService.meterExists(ASSIGNED)).isFalse();
+        assertThat(meterAllocationService.reserve(ASSIGNED)).isTrue();
+    }
+}
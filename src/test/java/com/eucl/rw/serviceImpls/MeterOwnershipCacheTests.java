@@ -0,0 +1,103 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.service.MeterService;
+import com.eucl.rw.service.UserService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ownership answers are cached per user, so every write that moves a meter has to drop both users' entries, and a
+ * write made on another node has to age out.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "app.meters.ownership-cache.ttl-ms=" + MeterOwnershipCacheTests.TTL_MS})
+@Import(CustomerFixtures.class)
+class MeterOwnershipCacheTests {
+
+    static final long TTL_MS = 1000;
+    private static final String ASSIGNED = "999996";
+
+    @Autowired
+    private MeterService meterService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer previousOwner;
+    private Customer newOwner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        previousOwner = fixtures.create("Previous Owner");
+        newOwner = fixtures.create("New Owner");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (meterService.meterExists(ASSIGNED)) {
+            meterService.deleteMeter(ASSIGNED);
+        }
+        fixtures.delete(newOwner);
+        fixtures.delete(previousOwner);
+    }
+
+    @Test
+    void assigningMeterRefreshesBothOwners() {
+        assertThat(meterService.isMeterOwnedBy(ASSIGNED, newOwner.user().getId())).isFalse();
+
+        userService.assignMeterToUser(previousOwner.user().getId(), ASSIGNED);
+        assertThat(meterService.isMeterOwnedBy(ASSIGNED, previousOwner.user().getId())).isTrue();
+        assertThat(meterService.isMeterOwnedBy(ASSIGNED, newOwner.user().getId())).isFalse();
+
+        userService.assignMeterToUser(newOwner.user().getId(), ASSIGNED);
+        assertThat(meterService.isMeterOwnedBy(ASSIGNED, newOwner.user().getId())).isTrue();
+        assertThat(meterService.isMeterOwnedBy(ASSIGNED, previousOwner.user().getId())).isFalse();
+    }
+
+    @Test
+    void transferOnAnotherNodeExpiresFromCache() throws InterruptedException {
+        String meterNumber = previousOwner.meterNumber();
+        assertThat(meterService.isMeterOwnedBy(meterNumber, previousOwner.user().getId())).isTrue();
+        assertThat(meterService.isMeterOwnedBy(meterNumber, newOwner.user().getId())).isFalse();
+
+        // Another node's transfer commits without touching this node's cache
+        jdbcTemplate.update("UPDATE meters SET user_id = ? WHERE meter_number = ?", newOwner.user().getId(), meterNumber);
+        try {
+            assertThat(meterService.isMeterOwnedBy(meterNumber, previousOwner.user().getId())).isTrue();
+
+            // Keep reading, as the previous owner would, so an access-based expiry would never fire
+            long deadline = System.currentTimeMillis() + TTL_MS * 3;
+            while (meterService.isMeterOwnedBy(meterNumber, previousOwner.user().getId())
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(meterService.isMeterOwnedBy(meterNumber, previousOwner.user().getId())).isFalse();
+            assertThat(meterService.isMeterOwnedBy(meterNumber, newOwner.user().getId())).isTrue();
+        } finally {
+            jdbcTemplate.update("UPDATE meters SET user_id = ? WHERE meter_number = ?",
+                    previousOwner.user().getId(), meterNumber);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.service.MailTransportService;
+import com.eucl.rw.service.NotificationDispatchService;
+import com.eucl.rw.service.NotificationService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Dispatches notifications to a local SMTP server that answers slowly, and checks no pooled database
+ * connection is held for as long as one mail round trip: claims and outcomes commit on either side of the send.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "management.health.mail.enabled=false"
+})
+@Import(CustomerFixtures.class)
+class NotificationDispatchTests {
+
+    private static final long MAIL_LATENCY_MS = 1500;
+    private static final int NOTIFICATIONS = 3;
+
+    private static final GreenMail smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+
+    @Autowired
+    private NotificationDispatchService notificationDispatchService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @MockitoSpyBean
+    private MailTransportService mailTransportService;
+
+    private Customer customer;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        // Own database, so dispatchers of other cached contexts cannot claim this suite's notifications.
+        EmbeddedDatabases.register(registry, "mail_dispatch");
+        if (!smtp.isRunning()) {
+            smtp.start();
+        }
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", () -> smtp.getSmtp().getPort());
+    }
+
+    @AfterAll
+    static void stopSmtp() {
+        smtp.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Dispatch Test");
+        for (int i = 0; i < NOTIFICATIONS; i++) {
+            notificationService.createNotification(customer.user().getId(), customer.meterNumber(), "Reminder " + i);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void connectionHoldTimeDoesNotFollowMailLatency() {
+        doAnswer(invocation -> {
+            Thread.sleep(MAIL_LATENCY_MS);
+            return invocation.callRealMethod();
+        }).when(mailTransportService).send(any());
+
+        long started = System.nanoTime();
+        int sent = notificationDispatchService.dispatchPending();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(sent).isEqualTo(NOTIFICATIONS);
+        assertThat(smtp.getReceivedMessages()).hasSize(NOTIFICATIONS);
+        assertThat(notificationService.getPendingEmailNotifications())
+                .noneMatch(notification -> notification.getUser().getId().equals(customer.user().getId()));
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(MAIL_LATENCY_MS);
+
+        Timer usage = meterRegistry.find("hikaricp.connections.usage").timer();
+        assertThat(usage).isNotNull();
+        assertThat(usage.max(TimeUnit.MILLISECONDS)).isLessThan((double) MAIL_LATENCY_MS);
+    }
+}
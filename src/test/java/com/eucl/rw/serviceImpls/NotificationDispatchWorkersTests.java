@@ -0,0 +1,120 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.service.MailTransportService;
+import com.eucl.rw.service.NotificationService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Lets the background workers drain the outbox on their own and checks they share it without sending anything
+ * twice. The context is closed after the suite so its workers stop while the database is still up.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "management.health.mail.enabled=false",
+        "app.notifications.dispatch.batch-size=5",
+        "app.notifications.dispatch.interval-ms=100"
+})
+@Import(CustomerFixtures.class)
+@DirtiesContext
+class NotificationDispatchWorkersTests {
+
+    private static final int WORKERS = 4;
+    private static final int NOTIFICATIONS = 40;
+    private static final long MAIL_LATENCY_MS = 200;
+    private static final long DRAIN_TIMEOUT_MS = 30_000;
+
+    private static final GreenMail smtp = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @MockitoSpyBean
+    private MailTransportService mailTransportService;
+
+    private Customer customer;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "mail_workers");
+        registry.add("app.notifications.dispatch.workers", () -> WORKERS);
+        if (!smtp.isRunning()) {
+            smtp.start();
+        }
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", () -> smtp.getSmtp().getPort());
+    }
+
+    @AfterAll
+    static void stopSmtp() {
+        smtp.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Dispatch Workers Test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void workersDrainTheOutboxOnVirtualThreadsWithoutDuplicates() throws InterruptedException {
+        Set<String> workerThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            Thread current = Thread.currentThread();
+            workerThreads.add(current.isVirtual() ? current.getName() : "platform " + current.getName());
+            Thread.sleep(MAIL_LATENCY_MS);
+            return invocation.callRealMethod();
+        }).when(mailTransportService).send(any());
+
+        for (int i = 0; i < NOTIFICATIONS; i++) {
+            notificationService.createNotification(customer.user().getId(), customer.meterNumber(), "Reminder " + i);
+        }
+
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MS;
+        while (smtp.getReceivedMessages().length < NOTIFICATIONS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        while (hasPending() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(hasPending()).isFalse();
+        assertThat(smtp.getReceivedMessages()).hasSize(NOTIFICATIONS);
+        assertThat(workerThreads).hasSizeGreaterThan(1).allMatch(name -> name.startsWith("notification-dispatch-"));
+    }
+
+    private boolean hasPending() {
+        return notificationService.getPendingEmailNotifications().stream()
+                .anyMatch(notification -> notification.getUser().getId().equals(customer.user().getId()));
+    }
+}
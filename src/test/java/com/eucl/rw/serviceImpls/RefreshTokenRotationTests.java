@@ -0,0 +1,151 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.model.RefreshToken;
+import com.eucl.rw.model.User;
+import com.eucl.rw.service.RefreshTokenService;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rotation, reuse detection and session revocation against the real refresh_tokens table, which has no foreign
+ * key to users, so sessions can be opened for bare user ids.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class RefreshTokenRotationTests {
+
+    private static final int CONCURRENT_ROTATIONS = 8;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    private User user;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "refresh_tokens");
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = userWithId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokenService.revokeUserSessions(user.getId());
+    }
+
+    @Test
+    void concurrentRotationOfOneTokenSucceedsOnce() throws Exception {
+        String token = refreshTokenService.createRefreshToken(user).getToken();
+        CyclicBarrier start = new CyclicBarrier(CONCURRENT_ROTATIONS);
+
+        List<Future<RefreshToken>> attempts = new ArrayList<>();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_ROTATIONS);
+        try {
+            for (int i = 0; i < CONCURRENT_ROTATIONS; i++) {
+                attempts.add(clients.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotateRefreshToken(token);
+                }));
+            }
+
+            int rotated = 0;
+            for (Future<RefreshToken> attempt : attempts) {
+                try {
+                    assertThat(attempt.get().getToken()).isNotEqualTo(token);
+                    rotated++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(SecurityException.class);
+                }
+            }
+            assertThat(rotated).isEqualTo(1);
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    void replayingARotatedTokenRevokesTheFamily() {
+        String original = refreshTokenService.createRefreshToken(user).getToken();
+        String current = refreshTokenService.rotateRefreshToken(original).getToken();
+        assertThat(refreshTokenService.validateRefreshToken(current).getUserId()).isEqualTo(user.getId());
+
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(original))
+                .isInstanceOf(SecurityException.class)
+                .hasMessage("Refresh token reuse detected");
+
+        // The legitimate holder's token went with the family.
+        assertThatThrownBy(() -> refreshTokenService.validateRefreshToken(current))
+                .isInstanceOf(SecurityException.class)
+                .hasMessage("Invalid refresh token");
+    }
+
+    @Test
+    void replayingATokenSeveralRotationsOldRevokesTheFamily() {
+        String original = refreshTokenService.createRefreshToken(user).getToken();
+        String second = refreshTokenService.rotateRefreshToken(original).getToken();
+        String current = refreshTokenService.rotateRefreshToken(second).getToken();
+        current = refreshTokenService.rotateRefreshToken(current).getToken();
+
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(original))
+                .isInstanceOf(SecurityException.class)
+                .hasMessage("Refresh token reuse detected");
+
+        String revoked = current;
+        assertThatThrownBy(() -> refreshTokenService.validateRefreshToken(revoked))
+                .isInstanceOf(SecurityException.class)
+                .hasMessage("Invalid refresh token");
+        // The family's history went with it, so a second replay finds nothing left to revoke.
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(second))
+                .isInstanceOf(SecurityException.class)
+                .hasMessage("Invalid refresh token");
+    }
+
+    @Test
+    void revokingUserSessionsKillsEveryFamily() {
+        List<String> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sessions.add(refreshTokenService.createRefreshToken(user).getToken());
+        }
+        sessions.set(0, refreshTokenService.rotateRefreshToken(sessions.get(0)).getToken());
+        User otherUser = userWithId();
+        String otherSession = refreshTokenService.createRefreshToken(otherUser).getToken();
+
+        try {
+            assertThat(refreshTokenService.revokeUserSessions(user.getId())).isEqualTo(3);
+
+            for (String session : sessions) {
+                assertThatThrownBy(() -> refreshTokenService.validateRefreshToken(session))
+                        .isInstanceOf(SecurityException.class);
+            }
+            assertThat(refreshTokenService.validateRefreshToken(otherSession).getUserId()).isEqualTo(otherUser.getId());
+        } finally {
+            refreshTokenService.revokeUserSessions(otherUser.getId());
+        }
+    }
+
+    private static User userWithId() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+}
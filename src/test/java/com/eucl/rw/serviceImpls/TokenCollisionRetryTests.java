@@ -0,0 +1,92 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.dto.TokenDTO;
+import com.eucl.rw.model.Token;
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.service.TokenService;
+import com.eucl.rw.service.TokenSupplyService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Simulates another node having issued the number the pool hands out next, and checks the purchase is
+ * repeated with a fresh number instead of failing.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Import(CustomerFixtures.class)
+class TokenCollisionRetryTests {
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @MockitoSpyBean
+    private TokenSupplyService tokenSupplyService;
+
+    private Customer other;
+    private Customer customer;
+    private String issuedElsewhere;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        other = fixtures.create("Other Node Customer");
+        customer = fixtures.create("Collision Test");
+        issuedElsewhere = fixtures.purchase(other, List.of(100.0)).get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+        fixtures.delete(other);
+    }
+
+    @Test
+    void singlePurchaseRetriesWithFreshToken() {
+        doReturn(issuedElsewhere).doCallRealMethod().when(tokenSupplyService).nextToken();
+
+        TokenDTO token = tokenService.generateToken(customer.meterNumber(), 500.0);
+
+        assertThat(token.getToken()).isNotEqualTo(issuedElsewhere);
+        assertThat(tokenRepository.findByMeter_MeterNumber(customer.meterNumber()))
+                .extracting(Token::getToken)
+                .containsExactly(token.getToken());
+    }
+
+    @Test
+    void batchPurchaseRetriesWithFreshTokens() {
+        doCallRealMethod().doReturn(issuedElsewhere).doCallRealMethod().when(tokenSupplyService).nextToken();
+
+        List<String> tokens = fixtures.purchase(customer, List.of(100.0, 200.0, 300.0));
+
+        assertThat(tokens).hasSize(3).doesNotContain(issuedElsewhere).doesNotContainNull();
+        assertThat(tokenRepository.findByMeter_MeterNumber(customer.meterNumber()))
+                .extracting(Token::getToken)
+                .containsExactlyInAnyOrderElementsOf(tokens);
+    }
+}
@@ -0,0 +1,112 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.dto.TokenExpiryReportDTO;
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.service.TokenService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Expires due tokens in small chunks while another transaction holds one of them, and checks the held row is
+ * skipped and reported rather than waited on.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.token-expiry.chunk-size=2",
+        "app.token-expiry.pause-ms=0"
+})
+@Import(CustomerFixtures.class)
+class TokenExpirySweepTests {
+
+    private static final int TOKENS = 5;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Customer customer;
+    private List<String> tokens;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        // Own database, so nothing else is due when the sweep counts what it left behind.
+        EmbeddedDatabases.register(registry, "token_expiry");
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Expiry Sweep Test");
+        tokens = fixtures.purchase(customer, Collections.nCopies(TOKENS, 100.0));
+        jdbcTemplate.update("UPDATE purchased_tokens SET expires_at = now() - interval '1 hour' WHERE meter_number = ?",
+                customer.meterNumber());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void lockedTokenIsSkippedAndReported() throws Exception {
+        String held = tokens.get(0);
+        double skippedBefore = meterRegistry.counter("tokens.expiry.skipped").count();
+
+        TokenExpiryReportDTO report;
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement lock = other.prepareStatement("SELECT id FROM purchased_tokens WHERE token = ? FOR UPDATE")) {
+                lock.setString(1, held);
+                lock.executeQuery().close();
+            }
+            report = tokenService.expireTokens(LocalDateTime.now());
+            other.rollback();
+        }
+
+        assertThat(report.getRowsExpired()).isEqualTo(TOKENS - 1);
+        assertThat(report.getChunks()).isEqualTo(2);
+        assertThat(report.getRowsSkipped()).isEqualTo(1);
+        assertThat(meterRegistry.counter("tokens.expiry.skipped").count() - skippedBefore).isEqualTo(1);
+        assertThat(tokenRepository.findByToken(held).orElseThrow().getTokenStatus()).isEqualTo(ETokenStatus.NEW);
+
+        // Released, the row is picked up by the next run.
+        report = tokenService.expireTokens(LocalDateTime.now());
+        assertThat(report.getRowsExpired()).isEqualTo(1);
+        assertThat(report.getRowsSkipped()).isZero();
+        assertThat(tokenRepository.findByToken(held).orElseThrow().getTokenStatus()).isEqualTo(ETokenStatus.EXPIRED);
+    }
+}
@@ -0,0 +1,133 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.enums.ETokenStatus;
+import com.eucl.rw.model.Token;
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.service.TokenService;
+import com.eucl.rw.support.CustomerFixtures;
+import com.eucl.rw.support.CustomerFixtures.Customer;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Import(CustomerFixtures.class)
+class TokenRedemptionConcurrencyTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRedemptionConcurrencyTests.class);
+
+    private static final int TOKENS = 500;
+    private static final int ATTEMPTS_PER_TOKEN = 8;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private CustomerFixtures fixtures;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private List<String> tokens;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "eucl");
+    }
+
+    @BeforeEach
+    void setUp() {
+        customer = fixtures.create("Redemption Test");
+        tokens = fixtures.purchase(customer, Collections.nCopies(TOKENS, 100.0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(customer);
+    }
+
+    @Test
+    void concurrentRedemptionsSucceedExactlyOncePerToken() throws InterruptedException {
+        Map<String, AtomicInteger> successes = new ConcurrentHashMap<>();
+        AtomicInteger rejections = new AtomicInteger();
+        List<Runnable> attempts = new ArrayList<>(TOKENS * ATTEMPTS_PER_TOKEN);
+        for (String token : tokens) {
+            for (int i = 0; i < ATTEMPTS_PER_TOKEN; i++) {
+                attempts.add(() -> {
+                    try {
+                        tokenService.redeemToken(token, customer.meterNumber());
+                        successes.computeIfAbsent(token, t -> new AtomicInteger()).incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejections.incrementAndGet();
+                    }
+                });
+            }
+        }
+        Collections.shuffle(attempts);
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        long began = System.nanoTime();
+        for (Runnable attempt : attempts) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                attempt.run();
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        double seconds = (System.nanoTime() - began) / 1e9;
+        logger.info("{} redemption attempts on {} tokens in {} ms: {} attempts/s", attempts.size(), TOKENS,
+                Math.round(seconds * 1000), Math.round(attempts.size() / seconds));
+
+        assertThat(successes).hasSize(TOKENS);
+        assertThat(successes.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        assertThat(rejections.get()).isEqualTo(TOKENS * (ATTEMPTS_PER_TOKEN - 1));
+        assertThat(tokenRepository.findByMeter_MeterNumber(customer.meterNumber()))
+                .extracting(Token::getTokenStatus)
+                .containsOnly(ETokenStatus.USED);
+    }
+
+    @Test
+    void expiredTokenIsNotRedeemedBeforeTheSweep() {
+        String token = tokens.get(0);
+        jdbcTemplate.update("UPDATE purchased_tokens SET expires_at = now() - interval '1 minute' WHERE token = ?", token);
+
+        assertThatThrownBy(() -> tokenService.redeemToken(token, customer.meterNumber()))
+                .hasMessage("Token is expired");
+        assertThat(tokenRepository.findByToken(token).orElseThrow().getTokenStatus()).isEqualTo(ETokenStatus.NEW);
+    }
+}
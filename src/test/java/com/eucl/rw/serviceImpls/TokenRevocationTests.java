@@ -0,0 +1,97 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.repository.RevokedTokenRepository;
+import com.eucl.rw.service.TokenRevocationService;
+import com.eucl.rw.support.EmbeddedDatabases;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revocations are written to the database and cached per instance; these check they reach a second instance
+ * through the sync and survive the filter rebuild in {@code purgeExpired}.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class TokenRevocationTests {
+
+    private static final int REVOKERS = 4;
+    private static final int REVOCATIONS_PER_REVOKER = 500;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedDatabases.register(registry, "token_revocation");
+    }
+
+    @Test
+    void revocationOnOneInstanceIsSeenByAnotherAfterSync() {
+        TokenRevocationServiceImpl otherInstance = new TokenRevocationServiceImpl(revokedTokenRepository, 100_000, 0.01, 10_000);
+        otherInstance.load();
+        String key = UUID.randomUUID().toString();
+
+        tokenRevocationService.revoke(key, LocalDateTime.now().plusHours(1));
+
+        assertThat(tokenRevocationService.isRevoked(key)).isTrue();
+        assertThat(otherInstance.isRevoked(key)).isFalse();
+        assertThat(otherInstance.synchronize()).isPositive();
+        assertThat(otherInstance.isRevoked(key)).isTrue();
+    }
+
+    @Test
+    void revocationRacingThePurgeIsStillReported() throws Exception {
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(1);
+        ConcurrentLinkedQueue<String> revokedKeys = new ConcurrentLinkedQueue<>();
+        AtomicBoolean revoking = new AtomicBoolean(true);
+        AtomicInteger purges = new AtomicInteger();
+
+        ExecutorService threads = Executors.newFixedThreadPool(REVOKERS + 1);
+        try {
+            CompletableFuture<Void> purger = CompletableFuture.runAsync(() -> {
+                while (revoking.get()) {
+                    tokenRevocationService.purgeExpired();
+                    purges.incrementAndGet();
+                }
+            }, threads);
+
+            List<CompletableFuture<Void>> revokers = IntStream.range(0, REVOKERS)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        for (int j = 0; j < REVOCATIONS_PER_REVOKER; j++) {
+                            String key = UUID.randomUUID().toString();
+                            tokenRevocationService.revoke(key, expiresAt);
+                            revokedKeys.add(key);
+                        }
+                    }, threads))
+                    .toList();
+
+            CompletableFuture.allOf(revokers.toArray(CompletableFuture[]::new)).join();
+            revoking.set(false);
+            purger.join();
+        } finally {
+            threads.shutdown();
+        }
+
+        assertThat(purges.get()).isGreaterThan(1);
+        assertThat(revokedKeys).hasSize(REVOKERS * REVOCATIONS_PER_REVOKER)
+                .allMatch(tokenRevocationService::isRevoked);
+    }
+}
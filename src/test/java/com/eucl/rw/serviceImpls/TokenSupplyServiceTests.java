@@ -0,0 +1,61 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.repository.TokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenSupplyServiceTests {
+
+    private static final int REFILL_BATCH_SIZE = 100;
+
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+    private final TokenSupplyServiceImpl tokenSupply = new TokenSupplyServiceImpl(tokenRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenSupply, "capacity", REFILL_BATCH_SIZE);
+        ReflectionTestUtils.setField(tokenSupply, "refillBatchSize", REFILL_BATCH_SIZE);
+        when(tokenRepository.findExistingTokens(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void exhaustedPoolTopsUpWithBatchedLookups() {
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < REFILL_BATCH_SIZE * 5; i++) {
+            tokens.add(tokenSupply.nextToken());
+        }
+
+        assertThat(tokens).hasSize(REFILL_BATCH_SIZE * 5).allMatch(token -> token.matches("\\d{16}"));
+        verify(tokenRepository, times(5)).findExistingTokens(any());
+        verify(tokenRepository, never()).existsByToken(anyString());
+    }
+
+    @Test
+    void numbersAlreadyIssuedAreNeverHandedOut() {
+        Set<String> issued = new HashSet<>();
+        when(tokenRepository.findExistingTokens(any())).thenAnswer(invocation -> {
+            Set<String> candidates = invocation.getArgument(0);
+            List<String> taken = candidates.stream().limit(REFILL_BATCH_SIZE / 2).toList();
+            issued.addAll(taken);
+            return taken;
+        });
+
+        for (int i = 0; i < REFILL_BATCH_SIZE; i++) {
+            assertThat(issued).doesNotContain(tokenSupply.nextToken());
+        }
+    }
+}
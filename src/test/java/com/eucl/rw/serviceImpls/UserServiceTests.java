@@ -0,0 +1,68 @@
+package com.eucl.rw.serviceImpls;
+
+import com.eucl.rw.config.PaginationProperties;
+import com.eucl.rw.model.User;
+import com.eucl.rw.repository.MeterRepository;
+import com.eucl.rw.repository.UserRepository;
+import com.eucl.rw.service.MeterService;
+import com.eucl.rw.service.PasswordHashingService;
+import com.eucl.rw.service.RefreshTokenService;
+import com.eucl.rw.service.SecurityVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTests {
+
+    private static final String EMAIL = "user@test.rw";
+    private static final String PASSWORD = "secret";
+    private static final String OLD_HASH = "$2a$04$old";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHashingService passwordHashingService = mock(PasswordHashingService.class);
+    private final UserServiceImpl userService = new UserServiceImpl(userRepository, mock(MeterRepository.class),
+            mock(PasswordEncoder.class), mock(MeterService.class), mock(SecurityVersionService.class),
+            passwordHashingService, mock(RefreshTokenService.class), mock(PaginationProperties.class));
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail(EMAIL);
+        user.setPassword(OLD_HASH);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(passwordHashingService.matches(PASSWORD, OLD_HASH)).thenReturn(true);
+        when(passwordHashingService.needsRehash(OLD_HASH)).thenReturn(true);
+    }
+
+    @Test
+    void outdatedHashIsUpgradedOnLogin() {
+        when(passwordHashingService.encode(PASSWORD)).thenReturn("$2a$10$new");
+        when(userRepository.updatePassword(user.getId(), OLD_HASH, "$2a$10$new")).thenReturn(1);
+
+        assertThat(userService.authenticateUser(EMAIL, PASSWORD).getPassword()).isEqualTo("$2a$10$new");
+    }
+
+    @Test
+    void busyHashingPoolDefersTheUpgradeInsteadOfFailingTheLogin() {
+        when(passwordHashingService.encode(PASSWORD)).thenThrow(new RejectedExecutionException("pool full"));
+
+        assertThat(userService.authenticateUser(EMAIL, PASSWORD)).isSameAs(user);
+        assertThat(user.getPassword()).isEqualTo(OLD_HASH);
+        verify(userRepository, never()).updatePassword(any(), anyString(), anyString());
+    }
+}
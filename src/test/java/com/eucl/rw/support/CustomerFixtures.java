@@ -0,0 +1,81 @@
+package com.eucl.rw.support;
+
+import com.eucl.rw.dto.PurchaseLineDTO;
+import com.eucl.rw.enums.ERole;
+import com.eucl.rw.model.Meter;
+import com.eucl.rw.model.User;
+import com.eucl.rw.repository.NotificationRepository;
+import com.eucl.rw.repository.TokenRepository;
+import com.eucl.rw.repository.UserRepository;
+import com.eucl.rw.service.MeterService;
+import com.eucl.rw.service.TokenService;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Creates a customer with one meter, buys tokens for it and removes everything again, for suites that run
+ * against a shared database. Pull it in with {@code @Import(CustomerFixtures.class)}.
+ */
+@TestComponent
+public class CustomerFixtures {
+
+    private final UserRepository userRepository;
+    private final MeterService meterService;
+    private final TokenService tokenService;
+    private final TokenRepository tokenRepository;
+    private final NotificationRepository notificationRepository;
+
+    public CustomerFixtures(UserRepository userRepository,
+                            MeterService meterService,
+                            TokenService tokenService,
+                            TokenRepository tokenRepository,
+                            NotificationRepository notificationRepository) {
+        this.userRepository = userRepository;
+        this.meterService = meterService;
+        this.tokenService = tokenService;
+        this.tokenRepository = tokenRepository;
+        this.notificationRepository = notificationRepository;
+    }
+
+    public Customer create(String name) {
+        String unique = UUID.randomUUID().toString();
+        User user = new User();
+        user.setName(name);
+        user.setEmail(unique + "@test.rw");
+        user.setPhone(unique);
+        user.setNationalId(unique);
+        user.setPassword("not-used");
+        user.setRoles(Set.of(ERole.ROLE_CUSTOMER));
+        user = userRepository.save(user);
+        return new Customer(user, meterService.registerMeter(user.getId()));
+    }
+
+    /**
+     * Buys one token per amount on the customer's meter and returns the token numbers in order.
+     */
+    public List<String> purchase(Customer customer, List<Double> amounts) {
+        List<PurchaseLineDTO> lines = amounts.stream()
+                .map(amount -> new PurchaseLineDTO(customer.meterNumber(), amount))
+                .toList();
+        return tokenService.generateTokens(lines).stream()
+                .map(result -> result.getToken().getToken())
+                .toList();
+    }
+
+    public void delete(Customer customer) {
+        notificationRepository.deleteAll(notificationRepository.findByUser_Id(customer.user().getId()));
+        tokenRepository.deleteAll(tokenRepository.findByMeter_MeterNumber(customer.meterNumber()));
+        meterService.deleteMeter(customer.meterNumber());
+        userRepository.deleteById(customer.user().getId());
+    }
+
+    public record Customer(User user, Meter meter) {
+
+        public String meterNumber() {
+            return meter.getMeterNumber();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.eucl.rw.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One embedded Postgres per test JVM, with a database per suite, so tests never touch the developer's own
+ * database and suites that seed bulk data do not see each other's rows.
+ */
+public final class EmbeddedDatabases {
+
+    private static final String USER = "postgres";
+
+    private static EmbeddedPostgres server;
+    private static final Set<String> databases = new HashSet<>();
+
+    private EmbeddedDatabases() {
+    }
+
+    /**
+     * Creates the database on first use and reports whether it is new, so callers can prepare it once.
+     */
+    public static synchronized boolean createIfAbsent(String database) {
+        if (!databases.add(database)) {
+            return false;
+        }
+        try (Connection connection = server().getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + database);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not create test database " + database, e);
+        }
+        return true;
+    }
+
+    public static DataSource dataSource(String database) {
+        createIfAbsent(database);
+        return new DriverManagerDataSource(server().getJdbcUrl(USER, database), USER, "");
+    }
+
+    public static void register(DynamicPropertyRegistry registry, String database) {
+        createIfAbsent(database);
+        String url = server().getJdbcUrl(USER, database);
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> USER);
+        registry.add("spring.datasource.password", () -> "");
+        // Background jobs stay off: they would race the suites for rows, and the server stops in its own shutdown
+        // hook alongside the cached contexts, so they would fill the log with connection errors. Suites that test
+        // a job call it directly or switch it back on.
+        registry.add("app.scheduling.enabled", () -> "false");
+        registry.add("app.notifications.dispatch.workers", () -> "0");
+        // Anything still holding a connection at shutdown would otherwise hold every context's close for the
+        // default 30 s, and each pool's close waits on its connection adder, which backs off for up to half the
+        // connection timeout.
+        registry.add("spring.lifecycle.timeout-per-shutdown-phase", () -> "2s");
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "2000");
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (server == null) {
+            try {
+                server = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return server;
+    }
+}
@@ -0,0 +1,189 @@
+package com.eucl.rw.util;
+
+import com.eucl.rw.enums.ERole;
+import com.eucl.rw.model.User;
+import com.eucl.rw.service.CustomUserDetailsService;
+import com.eucl.rw.service.SecurityVersionService;
+import com.eucl.rw.service.TokenRevocationService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token: the filter as it was before verification was cached (key
+ * derived and parser built on every call, token verified twice) against the current one. Both see the same
+ * token on every request, as a client does for the life of its access token, and neither touches the database.
+ * <p>
+ * Not run by the test suite. Run {@link #main} from the IDE, or after
+ * {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt}:
+ * {@code java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.eucl.rw.util.JwtAuthenticationFilterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-".repeat(8);
+
+    private final FilterChain chain = (request, response) -> { };
+
+    private OncePerRequestFilter before;
+    private OncePerRequestFilter after;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("benchmark@test.rw");
+        user.setRoles(Set.of(ERole.ROLE_CUSTOMER));
+        user.setSecurityVersion(0);
+
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(SECRET, 900000, 10000, new NothingRevoked());
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(null) {
+            private final UserDetails principal = new UserPrincipal(user.getId(), user.getEmail(), null,
+                    List.of(new SimpleGrantedAuthority(ERole.ROLE_CUSTOMER.name())));
+
+            @Override
+            public UserDetails loadUserByUsername(String email) {
+                return principal;
+            }
+        };
+        SecurityVersionService securityVersionService = new SecurityVersionService() {
+            @Override
+            public boolean isCurrent(UUID userId, int version) {
+                return true;
+            }
+
+            @Override
+            public void evict(UUID userId) {
+            }
+        };
+
+        before = new UncachedJwtFilter(userDetailsService);
+        after = new JwtAuthenticationFilter(jwtTokenUtil, userDetailsService, securityVersionService);
+        request = new MockHttpServletRequest("GET", "/api/tokens/mine");
+        request.addHeader("Authorization", "Bearer " + jwtTokenUtil.generateAccessToken(user));
+    }
+
+    @Benchmark
+    public int before() throws ServletException, IOException {
+        return authenticate(before);
+    }
+
+    @Benchmark
+    public int after() throws ServletException, IOException {
+        return authenticate(after);
+    }
+
+    private int authenticate(OncePerRequestFilter filter) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthenticationFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static final class NothingRevoked implements TokenRevocationService {
+        @Override
+        public void revoke(String revocationKey, LocalDateTime expiresAt) {
+        }
+
+        @Override
+        public boolean isRevoked(String revocationKey) {
+            return false;
+        }
+
+        @Override
+        public int synchronize() {
+            return 0;
+        }
+
+        @Override
+        public int purgeExpired() {
+            return 0;
+        }
+    }
+
+    /**
+     * The filter and JwtTokenUtil as they were before: a fresh key and parser per call, and the token verified once
+     * to validate it and again to read its subject. The old blacklist was never created, so it cost nothing.
+     */
+    private static final class UncachedJwtFilter extends OncePerRequestFilter {
+
+        private final CustomUserDetailsService userDetailsService;
+
+        private UncachedJwtFilter(CustomUserDetailsService userDetailsService) {
+            this.userDetailsService = userDetailsService;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            String jwt = request.getHeader("Authorization").substring(7);
+            try {
+                Jwts.parserBuilder().setSigningKey(signingKey()).build().parseClaimsJws(jwt);
+            } catch (RuntimeException e) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                return;
+            }
+            String username = Jwts.parserBuilder().setSigningKey(signingKey()).build()
+                    .parseClaimsJws(jwt).getBody().getSubject();
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
+            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            filterChain.doFilter(request, response);
+        }
+
+        private static SecretKey signingKey() {
+            return Keys.hmacShaKeyFor(SECRET.getBytes());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.eucl.rw.util;
+
+import com.eucl.rw.config.RateLimitProperties;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTests {
+
+    private static final String PARTNER_KEY = "partner-key";
+
+    private final FilterChain chain = (request, response) -> { };
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(new RateLimitProperties.Route("/api/tokens/**", 3, 0.001)));
+        properties.setApiKeys(Set.of(PARTNER_KEY));
+        filter = new RateLimitFilter(properties);
+    }
+
+    @Test
+    void unknownKeysAreChargedToTheRemoteAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(status("10.0.0.1", UUID.randomUUID().toString())).isEqualTo(HttpStatus.OK.value());
+        }
+
+        assertThat(status("10.0.0.1", UUID.randomUUID().toString())).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(status("10.0.0.1", null)).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(status("10.0.0.2", UUID.randomUUID().toString())).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    void configuredKeyHasItsOwnBucket() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(status("10.0.0.1", null)).isEqualTo(HttpStatus.OK.value());
+        }
+
+        assertThat(status("10.0.0.1", PARTNER_KEY)).isEqualTo(HttpStatus.OK.value());
+        assertThat(status("10.0.0.1", null)).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    private int status(String remoteAddress, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tokens/1234567890123456");
+        request.setRemoteAddr(remoteAddress);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response.getStatus();
+    }
+}